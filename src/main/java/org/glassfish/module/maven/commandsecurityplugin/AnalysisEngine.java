@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.util.Collection;
+
+import org.objectweb.asm.ClassVisitor;
+
+/**
+ * Parses a class file and reports what the authorization analysis needs to
+ * a class visitor.
+ * <p>
+ * Engines differ in how much of the class file they look at.  All of them
+ * report, in the same order as ASM's ClassReader would, the class header,
+ * the class-level annotations and the annotations of every field which
+ * carries at least one of the field annotations of interest.  They may omit
+ * everything else.
+ */
+interface AnalysisEngine {
+
+    String ASM = "asm";
+    String MINIMAL = "minimal";
+
+    /**
+     * Parses the class and drives the visitor.
+     *
+     * @param header the already-read header of the class file
+     * @param visitor the visitor to report to
+     * @param fieldAnnotationDescs descriptors of the field annotations of interest
+     */
+    void accept(ClassFileHeader header, ClassVisitor visitor, Collection<String> fieldAnnotationDescs);
+
+    /**
+     * Returns the engine with the specified name.
+     *
+     * @param name name of the engine
+     * @return the engine
+     * @throws IllegalArgumentException if no engine has that name
+     */
+    static AnalysisEngine named(final String name) {
+        switch (name) {
+            case ASM:
+                return AsmAnalysisEngine.INSTANCE;
+            case MINIMAL:
+                return MinimalAnalysisEngine.INSTANCE;
+            default:
+                throw new IllegalArgumentException("Unrecognized analysis engine " + name
+                        + "; expected one of " + ASM + ", " + MINIMAL);
+        }
+    }
+}
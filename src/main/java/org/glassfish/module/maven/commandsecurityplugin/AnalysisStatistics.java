@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reactor-wide counters describing how much work the type analysis did and
+ * how much it avoided.
+ */
+class AnalysisStatistics {
+
+    /**
+     * Classes whose byte code was read and analyzed.
+     */
+    final AtomicLong classesAnalyzed = new AtomicLong();
+
+    /**
+     * Classes whose constant pool showed they could not contribute authorization
+     * information, so only their header was used.
+     */
+    final AtomicLong classesPrefiltered = new AtomicLong();
+
+    /**
+     * Commands taken from a command security index written at compile time
+     * instead of their byte code.
+     */
+    final AtomicLong classesFromCommandIndexes = new AtomicLong();
+
+    /**
+     * Classes, interfaces and config beans taken from a JAR's Jandex index
+     * instead of their byte code.
+     */
+    final AtomicLong classesFromJandex = new AtomicLong();
+
+    /**
+     * Classes handled from their JAR's summary without reading their class file.
+     */
+    final AtomicLong classesFromSummaries = new AtomicLong();
+
+    /**
+     * JARs summarized by reading all their classes, and JARs whose summary
+     * was loaded from the cache saved by an earlier build.
+     */
+    final AtomicLong jarSummariesBuilt = new AtomicLong();
+    final AtomicLong jarSummariesLoaded = new AtomicLong();
+
+    /**
+     * Interfaces and config beans whose class file header was all that was read.
+     */
+    final AtomicLong classesReadHeaderOnly = new AtomicLong();
+
+    /**
+     * Ancestors recognized as non-commands from their package alone, without
+     * reading their byte code.
+     */
+    final AtomicLong classesInTerminalPackages = new AtomicLong();
+
+    /**
+     * Time spent parsing class files, excluding the analysis of their ancestors.
+     */
+    final AtomicLong parseNanos = new AtomicLong();
+
+    @Override
+    public String toString() {
+        return "Command security analysis: " + classesAnalyzed.get() + " classes analyzed, "
+                + classesPrefiltered.get() + " of them by header only (constant pool prefilter); "
+                + classesReadHeaderOnly.get() + " interfaces and config beans read as far as their headers; "
+                + classesFromCommandIndexes.get() + " commands taken from command security indexes instead of byte code; "
+                + classesFromJandex.get() + " types taken from Jandex indexes instead of byte code; "
+                + classesFromSummaries.get() + " types taken from JAR summaries ("
+                + jarSummariesBuilt.get() + " JARs summarized, " + jarSummariesLoaded.get() + " summaries loaded from the cache); "
+                + classesInTerminalPackages.get() + " ancestor lookups ended at terminal packages without reading byte code; "
+                + TimeUnit.NANOSECONDS.toMillis(parseNanos.get()) + " ms spent parsing class files";
+    }
+}
@@ -86,9 +86,15 @@ public class CheckMojo extends CommonMojo {
         } catch (IOException ex) {
             throw new MojoFailureException("Error initializing output file", ex);
         }
-        final TypeProcessor typeProcessor = new TypeProcessorImpl(this, project, isFailureFatal,
+        final TypeProcessorImpl typeProcessor = new TypeProcessorImpl(this, project, isFailureFatal,
                 isCheckAPIvsParse);
+        configure(typeProcessor);
+        typeProcessor.setVerdictOnly(true);
         typeProcessor.execute();
+        logStatistics(typeProcessor);
+        reportConfigBeanGraphProblems(typeProcessor);
+        final boolean isLocatorMismatch = reportLocatorMismatches(typeProcessor);
+        writeClassSources(typeProcessor);
 
         final StringBuilder trace = typeProcessor.trace();
 
@@ -123,6 +129,9 @@ public class CheckMojo extends CommonMojo {
                 wikiOutputInfo.finish();
             }
         }
+        if (isLocatorMismatch && typeProcessor.isFailureFatal()) {
+            throw new MojoFailureException("hk2-locator file(s) parsed differently from hk2");
+        }
     }
 
     private void ensureViolationWikiTitleIsPresent() throws IOException {
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Holds the bytes of one class file while it is being analyzed.
+ * <p>
+ * Each thread has one buffer which it reuses for every class it reads,
+ * growing it only when a class is larger than any seen before.  A class is
+ * fully parsed, and its buffer released, before the analysis moves on to its
+ * ancestors, so one buffer per thread is normally enough.  If the thread's
+ * buffer is still in use when another is needed, a new one is handed out for
+ * that single use.
+ */
+class ClassFileBuffer {
+
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+
+    private static final ThreadLocal<ClassFileBuffer> BUFFERS = ThreadLocal.withInitial(ClassFileBuffer::new);
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int length = 0;
+    private boolean isInUse = false;
+
+    /**
+     * Returns the current thread's buffer, or a new one if that is in use.
+     * Release the buffer when the class bytes are no longer needed.
+     *
+     * @return an empty buffer for the caller's exclusive use
+     */
+    static ClassFileBuffer acquire() {
+        ClassFileBuffer buffer = BUFFERS.get();
+        if (buffer.isInUse) {
+            buffer = new ClassFileBuffer();
+        }
+        buffer.isInUse = true;
+        buffer.length = 0;
+        return buffer;
+    }
+
+    void release() {
+        isInUse = false;
+    }
+
+    /**
+     * @return the array holding the class bytes, starting at offset 0; usually longer than the class
+     */
+    byte[] bytes() {
+        return bytes;
+    }
+
+    int length() {
+        return length;
+    }
+
+    /**
+     * Reads a class file from a stream, replacing any bytes already held.
+     *
+     * @param is the stream to read; not closed
+     * @param size the number of bytes the stream will supply; negative if not known
+     * @throws IOException if the stream cannot be read or ends early
+     */
+    void read(final InputStream is, final long size) throws IOException {
+        if (size >= 0) {
+            ensureCapacity(size);
+            length = is.readNBytes(bytes, 0, (int) size);
+            if (length != size) {
+                throw new EOFException("Expected " + size + " bytes but read " + length);
+            }
+            return;
+        }
+        length = 0;
+        int n;
+        while ((n = is.read(bytes, length, bytes.length - length)) != -1) {
+            length += n;
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+        }
+    }
+
+    /**
+     * Reads a class file from disk, replacing any bytes already held.
+     *
+     * @param path the class file
+     * @throws IOException if the file cannot be read
+     */
+    void read(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            ensureCapacity(size);
+            final ByteBuffer target = ByteBuffer.wrap(bytes, 0, (int) size);
+            while (target.hasRemaining()) {
+                if (channel.read(target) == -1) {
+                    throw new EOFException("Expected " + size + " bytes in " + path + " but read " + target.position());
+                }
+            }
+            length = (int) size;
+        }
+    }
+
+    private void ensureCapacity(final long size) throws IOException {
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IOException("Class file of " + size + " bytes is too large");
+        }
+        if (size > bytes.length) {
+            bytes = new byte[Math.max((int) size, bytes.length * 2)];
+        }
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Reads the constant pool and the header (access flags, name, superclass and
+ * interfaces) of a class file without visiting its members.
+ * <p>
+ * This is enough to decide whether a class can matter to the authorization
+ * analysis at all and, if it cannot, to follow its ancestry without handing
+ * it to ASM.
+ */
+class ClassFileHeader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private final byte[] b;
+    private final int offset;
+    private final int end;
+
+    /*
+     * Offset of each constant pool entry's tag byte, by constant pool index.
+     */
+    private final int[] cpOffsets;
+    private final String[] utf8Cache;
+
+    private final int version;
+    private final int access;
+    private final String className;
+    private final String superName;
+    private final String[] interfaces;
+    private final int headerEnd;
+
+    ClassFileHeader(final byte[] b, final int offset, final int length) {
+        this.b = b;
+        this.offset = offset;
+        this.end = offset + length;
+        if (length < 10 || readInt(offset) != MAGIC) {
+            throw new IllegalArgumentException("Not a class file");
+        }
+        version = readUnsignedShort(offset + 6);
+        final int cpCount = readUnsignedShort(offset + 8);
+        cpOffsets = new int[cpCount];
+        utf8Cache = new String[cpCount];
+        int p = offset + 10;
+        for (int i = 1; i < cpCount; i++) {
+            cpOffsets[i] = p;
+            final int tag = readUnsignedByte(p);
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    p += 3 + readUnsignedShort(p + 1);
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    p += 5;
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    p += 9;
+                    i++;
+                    break;
+                case CONSTANT_CLASS:
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    p += 3;
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    p += 4;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unrecognized constant pool tag " + tag + " at offset " + p);
+            }
+        }
+        access = readUnsignedShort(p);
+        className = classAt(readUnsignedShort(p + 2));
+        superName = classAt(readUnsignedShort(p + 4));
+        final int interfaceCount = readUnsignedShort(p + 6);
+        interfaces = new String[interfaceCount];
+        p += 8;
+        for (int i = 0; i < interfaceCount; i++, p += 2) {
+            interfaces[i] = classAt(readUnsignedShort(p));
+        }
+        headerEnd = p;
+    }
+
+    byte[] bytes() {
+        return b;
+    }
+
+    int offset() {
+        return offset;
+    }
+
+    int length() {
+        return end - offset;
+    }
+
+    /**
+     * @return offset of the fields_count item, just past the interfaces
+     */
+    int headerEnd() {
+        return headerEnd;
+    }
+
+    int version() {
+        return version;
+    }
+
+    int access() {
+        return access;
+    }
+
+    String className() {
+        return className;
+    }
+
+    /**
+     * @return internal name of the superclass; null for java/lang/Object and module-info
+     */
+    String superName() {
+        return superName;
+    }
+
+    String[] interfaces() {
+        return interfaces;
+    }
+
+    /**
+     * Reports whether any UTF8 constant contains any of the specified ASCII
+     * strings.  Class names, descriptors and signatures all live in UTF8
+     * constants, so a class that refers to a type in any way mentions it here.
+     *
+     * @param markers ASCII byte sequences to search for
+     * @return true if at least one marker occurs in at least one UTF8 constant
+     */
+    boolean mentionsAny(final byte[][] markers) {
+        for (int i = 1; i < cpOffsets.length; i++) {
+            final int p = cpOffsets[i];
+            if (p == 0 || b[p] != CONSTANT_UTF8) {
+                continue;
+            }
+            final int start = p + 3;
+            final int stop = start + readUnsignedShort(p + 1);
+            for (byte[] marker : markers) {
+                if (contains(start, stop, marker)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reports which of the specified ASCII strings occur in the UTF8 constants,
+     * in one pass over the constant pool.
+     *
+     * @param markers ASCII byte sequences to search for; at most 32
+     * @return bit i set if markers[i] occurs in at least one UTF8 constant
+     */
+    int mentionedMarkers(final byte[][] markers) {
+        final int all = (markers.length == 32 ? -1 : (1 << markers.length) - 1);
+        int result = 0;
+        for (int i = 1; i < cpOffsets.length && result != all; i++) {
+            final int p = cpOffsets[i];
+            if (p == 0 || b[p] != CONSTANT_UTF8) {
+                continue;
+            }
+            final int start = p + 3;
+            final int stop = start + readUnsignedShort(p + 1);
+            for (int m = 0; m < markers.length; m++) {
+                if ((result & (1 << m)) == 0 && contains(start, stop, markers[m])) {
+                    result |= 1 << m;
+                }
+            }
+        }
+        return result;
+    }
+
+    static byte[][] markers(final String... strings) {
+        final byte[][] result = new byte[strings.length][];
+        for (int i = 0; i < strings.length; i++) {
+            result[i] = strings[i].getBytes(US_ASCII);
+        }
+        return result;
+    }
+
+    private boolean contains(final int start, final int stop, final byte[] marker) {
+        final int last = stop - marker.length;
+        final byte first = marker[0];
+        outer:
+        for (int i = start; i <= last; i++) {
+            if (b[i] != first) {
+                continue;
+            }
+            for (int j = 1; j < marker.length; j++) {
+                if (b[i + j] != marker[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the internal name referred to by a CONSTANT_Class entry.
+     *
+     * @param cpIndex constant pool index of the class entry; 0 for none
+     * @return the internal class name; null if the index is 0
+     */
+    String classAt(final int cpIndex) {
+        return (cpIndex == 0 ? null : utf8(readUnsignedShort(cpOffsets[cpIndex] + 1)));
+    }
+
+    /**
+     * Returns the value of a CONSTANT_Integer or CONSTANT_Float entry as raw bits.
+     *
+     * @param cpIndex constant pool index of the entry
+     * @return the four bytes of the constant
+     */
+    int intAt(final int cpIndex) {
+        return readInt(cpOffsets[cpIndex] + 1);
+    }
+
+    /**
+     * Returns the value of a CONSTANT_Long or CONSTANT_Double entry as raw bits.
+     *
+     * @param cpIndex constant pool index of the entry
+     * @return the eight bytes of the constant
+     */
+    long longAt(final int cpIndex) {
+        final int p = cpOffsets[cpIndex] + 1;
+        return ((long) readInt(p) << 32) | (readInt(p + 4) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the value of a CONSTANT_Utf8 entry, decoding it on first use.
+     *
+     * @param cpIndex constant pool index of the UTF8 entry
+     * @return the string
+     */
+    String utf8(final int cpIndex) {
+        String s = utf8Cache[cpIndex];
+        if (s == null) {
+            final int p = cpOffsets[cpIndex];
+            s = decode(p + 3, readUnsignedShort(p + 1));
+            utf8Cache[cpIndex] = s;
+        }
+        return s;
+    }
+
+    /*
+     * Decodes the JVM's modified UTF-8.
+     */
+    private String decode(final int start, final int length) {
+        final char[] chars = new char[length];
+        int count = 0;
+        int p = start;
+        final int stop = start + length;
+        while (p < stop) {
+            final int c = b[p++] & 0xFF;
+            if (c < 0x80) {
+                chars[count++] = (char) c;
+            } else if (c < 0xE0) {
+                chars[count++] = (char) (((c & 0x1F) << 6) | (b[p++] & 0x3F));
+            } else {
+                chars[count++] = (char) (((c & 0x0F) << 12) | ((b[p++] & 0x3F) << 6) | (b[p++] & 0x3F));
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    int readUnsignedShort(final int p) {
+        if (p + 2 > end) {
+            throw new IllegalArgumentException("Truncated class file");
+        }
+        return ((b[p] & 0xFF) << 8) | (b[p + 1] & 0xFF);
+    }
+
+    int readUnsignedByte(final int p) {
+        if (p >= end) {
+            throw new IllegalArgumentException("Truncated class file");
+        }
+        return b[p] & 0xFF;
+    }
+
+    int readInt(final int p) {
+        if (p + 4 > end) {
+            throw new IllegalArgumentException("Truncated class file");
+        }
+        return ((b[p] & 0xFF) << 24) | ((b[p + 1] & 0xFF) << 16) | ((b[p + 2] & 0xFF) << 8) | (b[p + 3] & 0xFF);
+    }
+}
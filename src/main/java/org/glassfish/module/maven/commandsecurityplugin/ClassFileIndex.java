@@ -0,0 +1,578 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.plugin.logging.Log;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+
+/**
+ * Reactor-wide index of the class files on the class paths of the modules
+ * being processed.
+ * <p>
+ * Each JAR is indexed once, from its central directory, and the result is
+ * shared by the type processors of all modules in the build.  Locating the
+ * byte code for a class then costs one hash lookup plus one entry read, rather
+ * than a search through every element of the module's class path.
+ * <p>
+ * Directories are not indexed up front because the module's own output
+ * directory is always among them and is consulted by probing for the file.
+ */
+class ClassFileIndex {
+
+    private static final String CLASS_SUFFIX = ".class";
+    private static final String JANDEX_INDEX_PATH = "META-INF/jandex.idx";
+    private static final String LOCATOR_PREFIX = "META-INF/hk2-locator/";
+
+    /*
+     * Where JAR summaries are saved between builds; null to not save them.
+     */
+    private final File summaryCacheDir;
+    private final boolean isSummaryEnabled;
+    private final List<String> summarizedNames;
+    private final AnalysisStatistics statistics;
+    private final Log log;
+
+    /**
+     * Creates an index which, when asked about a class in a JAR, summarizes
+     * the whole JAR in one pass.
+     *
+     * @param isSummaryEnabled whether to summarize JARs at all
+     * @param summaryCacheDir where to save summaries for later builds; null to keep them in memory only
+     * @param summarizedNames names whose mention by each class the summaries record
+     * @param statistics where to count summaries built and loaded
+     * @param log where to report indexes which cannot be read
+     * @see ClassSummaryIndex
+     */
+    ClassFileIndex(final boolean isSummaryEnabled, final File summaryCacheDir,
+            final List<String> summarizedNames, final AnalysisStatistics statistics, final Log log) {
+        this.isSummaryEnabled = isSummaryEnabled;
+        this.summaryCacheDir = summaryCacheDir;
+        this.summarizedNames = summarizedNames;
+        this.statistics = statistics;
+        this.log = log;
+    }
+
+    /**
+     * Indexed class path elements, by file.
+     */
+    private final Map<File,Element> elements = new ConcurrentHashMap<>();
+
+    /**
+     * Where each class can be found, by internal class name.  Most classes
+     * live in exactly one JAR so the chain is usually one link long.
+     */
+    private final Map<String,Location> locations = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a view of the index restricted to, and ordered by, the specified
+     * class path, indexing any JARs not seen before.
+     *
+     * @param classPathElements the module's class path elements, in order
+     * @return the class path view
+     * @throws IOException if a JAR cannot be opened
+     */
+    ClassPath classPath(final List<File> classPathElements) throws IOException {
+        final ClassPath result = new ClassPath();
+        for (File f : classPathElements) {
+            final Element e = element(f);
+            if (e != null) {
+                result.add(e);
+            }
+        }
+        return result;
+    }
+
+    private Element element(final File f) throws IOException {
+        Element e = elements.get(f);
+        if (e != null && ! e.isStale()) {
+            return e;
+        }
+        synchronized (this) {
+            e = elements.get(f);
+            if (e == null || e.isStale()) {
+                if (e != null) {
+                    discard(e);
+                }
+                if (f.isDirectory()) {
+                    e = new Element(f, null);
+                } else if (f.isFile()) {
+                    e = new Element(f, new ZipFile(f));
+                    index(e);
+                } else {
+                    return null;
+                }
+                elements.put(f, e);
+            }
+            return e;
+        }
+    }
+
+    private void index(final Element jar) {
+        for (Enumeration<? extends ZipEntry> entries = jar.zipFile.entries(); entries.hasMoreElements(); ) {
+            final String entryName = entries.nextElement().getName();
+            if (entryName.startsWith(LOCATOR_PREFIX) && entryName.length() > LOCATOR_PREFIX.length()
+                    && entryName.indexOf('/', LOCATOR_PREFIX.length()) < 0) {
+                jar.locatorNames.add(entryName.substring(LOCATOR_PREFIX.length()));
+                continue;
+            }
+            final String internalName = internalName(entryName);
+            if (internalName != null) {
+                locations.compute(internalName, (name, next) -> new Location(jar, next));
+            }
+        }
+        Collections.sort(jar.locatorNames);
+    }
+
+    /*
+     * Returns the internal class name for a JAR entry; null if the entry is
+     * not a class file the index covers.
+     */
+    private static String internalName(final String entryName) {
+        if ( ! entryName.endsWith(CLASS_SUFFIX) || entryName.startsWith("META-INF/")) {
+            return null;
+        }
+        return entryName.substring(0, entryName.length() - CLASS_SUFFIX.length());
+    }
+
+    /*
+     * Drops a JAR which has changed since it was indexed: its classes'
+     * locations go and its file is closed.  Views of earlier modules' class
+     * paths which still hold the element can no longer read from it.
+     */
+    private void discard(final Element jar) throws IOException {
+        elements.remove(jar.file, jar);
+        if ( ! jar.isJar()) {
+            return;
+        }
+        for (Enumeration<? extends ZipEntry> entries = jar.zipFile.entries(); entries.hasMoreElements(); ) {
+            final String internalName = internalName(entries.nextElement().getName());
+            if (internalName != null) {
+                locations.computeIfPresent(internalName, (name, chain) -> chain.without(jar));
+            }
+        }
+        jar.zipFile.close();
+    }
+
+    /**
+     * Closes every JAR the index has opened and forgets them.  The index can
+     * still be used afterwards; JARs are then opened and indexed anew.
+     *
+     * @throws IOException if a JAR cannot be closed; the others are closed regardless
+     */
+    synchronized void close() throws IOException {
+        IOException failure = null;
+        for (Element e : new ArrayList<>(elements.values())) {
+            elements.remove(e.file, e);
+            if (e.isJar()) {
+                try {
+                    e.zipFile.close();
+                } catch (IOException ex) {
+                    if (failure == null) {
+                        failure = ex;
+                    } else {
+                        failure.addSuppressed(ex);
+                    }
+                }
+            }
+        }
+        locations.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Lists the hk2-locator files in a directory's META-INF/hk2-locator/.
+     *
+     * @param directory a class path directory, such as a module's build directory
+     * @return the locator files' names, without the directory, sorted; empty if there are none
+     */
+    static List<String> locatorNames(final File directory) {
+        final File[] files = new File(directory, LOCATOR_PREFIX).listFiles(File::isFile);
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        final List<String> result = new ArrayList<>(files.length);
+        for (File f : files) {
+            result.add(f.getName());
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * An indexed class path element: either a JAR or a directory.
+     */
+    class Element {
+        private final File file;
+        private final ZipFile zipFile;
+        private final long lastModified;
+        private final long length;
+
+        private Index jandexIndex;
+        private boolean isJandexIndexRead = false;
+
+        private ClassSummaryIndex summaryIndex;
+
+        /*
+         * Names of the JAR's hk2-locator files, found while indexing it.
+         */
+        private final List<String> locatorNames = new ArrayList<>(2);
+
+        private Map<String,CommandSecurityIndex.IndexedCommand> commandIndex;
+        private boolean isCommandIndexRead = false;
+
+        private Element(final File file, final ZipFile zipFile) {
+            this.file = file;
+            this.zipFile = zipFile;
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+        }
+
+        boolean isJar() {
+            return zipFile != null;
+        }
+
+        File file() {
+            return file;
+        }
+
+        private boolean isStale() {
+            return isJar() && (file.lastModified() != lastModified || file.length() != length);
+        }
+
+        /**
+         * Reads a class file from this element into the buffer, using the size
+         * recorded in the JAR or on disk so the bytes are read exactly once.
+         *
+         * @param internalClassName internal name (slash-separated) of the class
+         * @param buffer the buffer to read into
+         * @return true if the class was read; false if this element does not contain it
+         * @throws IOException if the class file cannot be read
+         */
+        boolean read(final String internalClassName, final ClassFileBuffer buffer) throws IOException {
+            final String path = internalClassName + CLASS_SUFFIX;
+            if (isJar()) {
+                final ZipEntry entry = zipFile.getEntry(path);
+                if (entry == null) {
+                    return false;
+                }
+                try (InputStream is = zipFile.getInputStream(entry)) {
+                    buffer.read(is, entry.getSize());
+                }
+                return true;
+            }
+            final File classFile = new File(file, path);
+            if ( ! classFile.isFile()) {
+                return false;
+            }
+            buffer.read(classFile.toPath());
+            return true;
+        }
+
+        /**
+         * Lists this element's hk2-locator files: the entries directly under
+         * META-INF/hk2-locator/ of a JAR, as its central directory listed them
+         * when the JAR was indexed, or the files in that directory of a
+         * directory.
+         *
+         * @return the locator files' names, without the directory, sorted; empty if there are none
+         */
+        List<String> locatorNames() {
+            return (isJar() ? locatorNames : ClassFileIndex.locatorNames(file));
+        }
+
+        /**
+         * Reads one of this element's hk2-locator files.
+         *
+         * @param locatorName the file's name, as {@link #locatorNames()} reports it
+         * @return the file's bytes
+         * @throws IOException if the file cannot be read
+         */
+        byte[] readLocator(final String locatorName) throws IOException {
+            if ( ! isJar()) {
+                return Files.readAllBytes(new File(file, LOCATOR_PREFIX + locatorName).toPath());
+            }
+            final ZipEntry entry = zipFile.getEntry(LOCATOR_PREFIX + locatorName);
+            if (entry == null) {
+                throw new FileNotFoundException(file + "!/" + LOCATOR_PREFIX + locatorName);
+            }
+            try (InputStream is = zipFile.getInputStream(entry)) {
+                return is.readAllBytes();
+            }
+        }
+
+        /**
+         * @param locatorName the name of one of this element's hk2-locator files
+         * @return a URL-style description of where the file is, for messages
+         */
+        String locatorSource(final String locatorName) {
+            final String url = file.toURI().toString();
+            return (isJar() ? "jar:" + url + "!/" : url) + LOCATOR_PREFIX + locatorName;
+        }
+
+        /**
+         * Returns what this JAR's Jandex index, if it has one, records about a
+         * class.  The index is read the first time it is needed.  An index
+         * which cannot be read, for example because a newer Jandex wrote it,
+         * is reported and then treated as absent.
+         *
+         * @param internalClassName internal name (slash-separated) of the class
+         * @return the indexed class; null if this element is not a JAR with an index covering the class
+         */
+        ClassInfo jandexClass(final String internalClassName) {
+            final Index index = jandexIndex();
+            return (index == null ? null : index.getClassByName(internalClassName.replace('/', '.')));
+        }
+
+        /**
+         * Returns what this element's command security index, if it has one,
+         * records about a class.  The index is read the first time it is
+         * needed; one which cannot be read is reported and then treated as
+         * absent.  An entry whose class file has changed since the index was
+         * written, or which does not say what class file it was made from, is
+         * ignored.
+         *
+         * @param internalClassName internal name (slash-separated) of the class
+         * @return the indexed command; null if the index does not cover the class or is out of date for it
+         * @see CommandSecurityIndexProcessor
+         */
+        CommandSecurityIndex.IndexedCommand indexedCommand(final String internalClassName) {
+            final Map<String,CommandSecurityIndex.IndexedCommand> index = commandIndex();
+            final CommandSecurityIndex.IndexedCommand command = (index == null ? null : index.get(internalClassName));
+            if (command == null || isCurrent(command)) {
+                return command;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("The command security index of " + file + " is out of date for " + internalClassName
+                        + "; analyzing its byte code");
+            }
+            return null;
+        }
+
+        /*
+         * A JAR's central directory gives each entry's size and CRC-32; a file
+         * in a directory is judged by its size and time stamp.
+         */
+        private boolean isCurrent(final CommandSecurityIndex.IndexedCommand command) {
+            if (command.classFileSize < 0) {
+                return false;
+            }
+            final String path = command.name + CLASS_SUFFIX;
+            if (isJar()) {
+                final ZipEntry entry = zipFile.getEntry(path);
+                return entry != null && entry.getSize() == command.classFileSize
+                        && entry.getCrc() == command.classFileCrc;
+            }
+            final File classFile = new File(file, path);
+            try {
+                return classFile.length() == command.classFileSize
+                        && Files.getLastModifiedTime(classFile.toPath()).toMillis() == command.classFileLastModified;
+            } catch (IOException ex) {
+                return false;
+            }
+        }
+
+        /**
+         * Returns this JAR's summary of a class, summarizing the JAR (or loading
+         * its saved summary) the first time it is needed.
+         *
+         * @param internalClassName internal name (slash-separated) of the class
+         * @return the class's summary; null if JARs are not summarized, this is a directory, or the JAR has no such class
+         * @throws IOException if the JAR cannot be read
+         */
+        ClassSummaryIndex.Summary summary(final String internalClassName) throws IOException {
+            if ( ! isSummaryEnabled || ! isJar()) {
+                return null;
+            }
+            return summaryIndex().get(internalClassName);
+        }
+
+        private synchronized ClassSummaryIndex summaryIndex() throws IOException {
+            if (summaryIndex == null) {
+                summaryIndex = ClassSummaryIndex.load(file, summaryCacheDir, summarizedNames);
+                if (statistics != null) {
+                    (summaryIndex.isFromCache() ? statistics.jarSummariesLoaded : statistics.jarSummariesBuilt)
+                            .incrementAndGet();
+                }
+            }
+            return summaryIndex;
+        }
+
+        private synchronized Map<String,CommandSecurityIndex.IndexedCommand> commandIndex() {
+            if ( ! isCommandIndexRead) {
+                isCommandIndexRead = true;
+                try {
+                    if (isJar()) {
+                        final ZipEntry entry = zipFile.getEntry(CommandSecurityIndex.PATH);
+                        if (entry != null) {
+                            try (InputStream is = zipFile.getInputStream(entry)) {
+                                commandIndex = CommandSecurityIndex.read(new BufferedInputStream(is));
+                            }
+                        }
+                    } else {
+                        final File indexFile = new File(file, CommandSecurityIndex.PATH);
+                        if (indexFile.isFile()) {
+                            try (InputStream is = new BufferedInputStream(new FileInputStream(indexFile))) {
+                                commandIndex = CommandSecurityIndex.read(is);
+                            }
+                        }
+                    }
+                } catch (IOException | RuntimeException ex) {
+                    log.warn("Unable to read the command security index of " + file
+                            + "; analyzing its commands from their byte code: " + ex);
+                    commandIndex = null;
+                }
+            }
+            return commandIndex;
+        }
+
+        private synchronized Index jandexIndex() {
+            if ( ! isJandexIndexRead) {
+                isJandexIndexRead = true;
+                final ZipEntry entry = (isJar() ? zipFile.getEntry(JANDEX_INDEX_PATH) : null);
+                if (entry != null) {
+                    try (InputStream is = zipFile.getInputStream(entry)) {
+                        jandexIndex = new IndexReader(is).read();
+                    } catch (IOException | RuntimeException ex) {
+                        log.warn("Unable to read the Jandex index of " + file + "; analyzing its classes from their byte code: "
+                                + ex);
+                        jandexIndex = null;
+                    }
+                }
+            }
+            return jandexIndex;
+        }
+
+        @Override
+        public String toString() {
+            return file.getAbsolutePath();
+        }
+    }
+
+    private static class Location {
+        private final Element element;
+        private final Location next;
+
+        private Location(final Element element, final Location next) {
+            this.element = element;
+            this.next = next;
+        }
+
+        /*
+         * Returns the chain without the element's link; null if nothing is left.
+         */
+        private Location without(final Element e) {
+            final Location rest = (next == null ? null : next.without(e));
+            if (element == e) {
+                return rest;
+            }
+            return (rest == next ? this : new Location(element, rest));
+        }
+    }
+
+    /**
+     * The index as seen from one module's class path.
+     */
+    class ClassPath {
+
+        private final Map<Element,Integer> positions = new IdentityHashMap<>();
+        private final List<Element> elements = new ArrayList<>();
+        private final List<Element> directories = new ArrayList<>();
+
+        private void add(final Element e) {
+            if (positions.containsKey(e)) {
+                return;
+            }
+            positions.put(e, positions.size());
+            elements.add(e);
+            if ( ! e.isJar()) {
+                directories.add(e);
+            }
+        }
+
+        /**
+         * @return the class path's elements which exist, in class path order
+         */
+        List<Element> elements() {
+            return elements;
+        }
+
+        /**
+         * Finds the class path element that supplies the specified class, honoring
+         * class path order.
+         *
+         * @param internalClassName internal name (slash-separated) of the class
+         * @return the element containing the class; null if none does
+         */
+        Element find(final String internalClassName) {
+            Element jar = null;
+            int jarPosition = Integer.MAX_VALUE;
+            for (Location l = locations.get(internalClassName); l != null; l = l.next) {
+                final Integer p = positions.get(l.element);
+                if (p != null && p < jarPosition) {
+                    jar = l.element;
+                    jarPosition = p;
+                }
+            }
+            /*
+             * A directory earlier in the class path takes precedence.
+             */
+            for (Element dir : directories) {
+                if (positions.get(dir) > jarPosition) {
+                    break;
+                }
+                if (new File(dir.file, internalClassName + CLASS_SUFFIX).isFile()) {
+                    return dir;
+                }
+            }
+            return jar;
+        }
+
+        /**
+         * Reads the byte code for the specified class into the buffer.
+         *
+         * @param internalClassName internal name (slash-separated) of the class
+         * @param buffer the buffer to read into
+         * @return true if the class was read; false if the class is not on this class path
+         * @throws IOException if the class file cannot be read
+         */
+        boolean read(final String internalClassName, final ClassFileBuffer buffer) throws IOException {
+            final Element e = find(internalClassName);
+            return (e != null && e.read(internalClassName, buffer));
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Reactor-wide graph of the classes the analysis has read: one node per
+ * class, with edges to its superclass and interfaces.
+ * <p>
+ * Each node for an analyzed class also holds the authorization information
+ * the class declares itself, before anything is inherited.  Because this does
+ * not depend on the ancestors, a class is read at most once per build no
+ * matter how many commands in how many modules extend it; linking a node to
+ * its ancestors is a separate, non-recursive step done by the type processor.
+ * Interfaces are read only as far as their headers, to find their own
+ * super-interfaces.
+ * <p>
+ * Interface names are interned to small integer ids, and each node carries
+ * the transitive closure of the interfaces it implements as a bit set over
+ * those ids, so asking whether a class implements an interface, however
+ * indirectly, is a single bit test.
+ */
+class ClassHierarchy {
+
+    private final Map<String,Node> nodes = new ConcurrentHashMap<>();
+    private final Map<String,Integer> interfaceIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextInterfaceId = new AtomicInteger();
+
+    /**
+     * @param internalClassName internal (slash-separated) name of the class
+     * @return the class's node; null if the class has not been read
+     */
+    Node get(final String internalClassName) {
+        return nodes.get(internalClassName);
+    }
+
+    /**
+     * Adds a node.  A node for an analyzed class replaces one built from the
+     * same class's header only; otherwise an existing node is kept.
+     *
+     * @param node the node to add
+     * @return the node in the graph for the class
+     */
+    Node add(final Node node) {
+        return nodes.merge(node.name, node,
+                (existing, added) -> (added.isAnalyzed() && ! existing.isAnalyzed() ? added : existing));
+    }
+
+    /**
+     * Returns the id for an interface, assigning one the first time the
+     * interface is seen.
+     *
+     * @param internalInterfaceName internal name of the interface
+     * @return the interface's id
+     */
+    int interfaceId(final String internalInterfaceName) {
+        return interfaceIds.computeIfAbsent(internalInterfaceName, name -> nextInterfaceId.getAndIncrement());
+    }
+
+    /**
+     * Computes the ids of the specified interfaces and of all their
+     * super-interfaces.
+     *
+     * @param interfaces internal names of the interfaces a class implements directly
+     * @param interfaceNodes supplies the node for an interface, reading it if needed; null if it cannot be read
+     * @return the transitive closure of the interfaces
+     */
+    BitSet interfaceClosure(final List<String> interfaces, final Function<String,Node> interfaceNodes) {
+        final BitSet result = new BitSet();
+        for (String i : interfaces) {
+            result.set(interfaceId(i));
+            final Node node = interfaceNodes.apply(i);
+            if (node != null) {
+                result.or(closure(node, interfaceNodes));
+            }
+        }
+        return result;
+    }
+
+    /*
+     * Computes and remembers a node's interface closure, working through its
+     * super-interfaces depth first with an explicit stack.  A (malformed)
+     * cycle is cut where it is detected.
+     */
+    private BitSet closure(final Node start, final Function<String,Node> interfaceNodes) {
+        final Deque<Node> stack = new ArrayDeque<>();
+        final Set<Node> inProgress = new HashSet<>();
+        stack.push(start);
+        while ( ! stack.isEmpty()) {
+            final Node node = stack.peek();
+            if (node.interfaceClosure != null) {
+                stack.pop();
+                continue;
+            }
+            inProgress.add(node);
+            boolean isReady = true;
+            for (String i : node.interfaces) {
+                final Node superInterface = interfaceNodes.apply(i);
+                if (superInterface != null && superInterface.interfaceClosure == null
+                        && ! inProgress.contains(superInterface)) {
+                    stack.push(superInterface);
+                    isReady = false;
+                }
+            }
+            if (isReady) {
+                final BitSet closure = new BitSet();
+                for (String i : node.interfaces) {
+                    closure.set(interfaceId(i));
+                    final Node superInterface = interfaceNodes.apply(i);
+                    if (superInterface != null && superInterface.interfaceClosure != null) {
+                        closure.or(superInterface.interfaceClosure);
+                    }
+                }
+                node.interfaceClosure = closure;
+                stack.pop();
+            }
+        }
+        return start.interfaceClosure;
+    }
+
+    /**
+     * A class or interface in the hierarchy.
+     */
+    static class Node {
+        private final String name;
+        private final String superName;
+        private final List<String> interfaces;
+        private final CommandAuthorizationInfo ownInfo;
+        private final boolean isOwnCommand;
+        private volatile BitSet interfaceClosure;
+
+        /**
+         * Creates a node for a class or interface read from its header only.
+         *
+         * @param name internal name of the type
+         * @param superName internal name of the superclass; null for java/lang/Object
+         * @param interfaces internal names of the directly implemented (or extended) interfaces
+         */
+        Node(final String name, final String superName, final List<String> interfaces) {
+            this(name, superName, interfaces, null, null, false);
+        }
+
+        /**
+         * Creates a node for an analyzed class.
+         *
+         * @param name internal name of the class
+         * @param superName internal name of the superclass; null for java/lang/Object
+         * @param interfaces internal names of the directly implemented interfaces
+         * @param interfaceClosure ids of the implemented interfaces and all their super-interfaces
+         * @param ownInfo authorization information the class declares itself
+         * @param isOwnCommand whether the class itself implements AdminCommand, directly or through a super-interface
+         */
+        Node(final String name, final String superName, final List<String> interfaces,
+                final BitSet interfaceClosure, final CommandAuthorizationInfo ownInfo, final boolean isOwnCommand) {
+            this.name = name;
+            this.superName = superName;
+            this.interfaces = Collections.unmodifiableList(interfaces);
+            this.interfaceClosure = interfaceClosure;
+            this.ownInfo = ownInfo;
+            this.isOwnCommand = isOwnCommand;
+        }
+
+        String name() {
+            return name;
+        }
+
+        String superName() {
+            return superName;
+        }
+
+        List<String> interfaces() {
+            return interfaces;
+        }
+
+        /**
+         * @return whether the node was built from a full analysis of the class rather than its header
+         */
+        boolean isAnalyzed() {
+            return ownInfo != null;
+        }
+
+        /**
+         * @return the class's authorization information; its parent is set once the node is linked
+         */
+        CommandAuthorizationInfo info() {
+            return ownInfo;
+        }
+
+        boolean isOwnCommand() {
+            return isOwnCommand;
+        }
+
+        /**
+         * Reports whether the type implements an interface through its own
+         * interfaces, directly or indirectly.  Interfaces implemented only by
+         * superclasses are not included.
+         *
+         * @param interfaceId the interface's id
+         * @return true if the interface is in the type's interface closure
+         */
+        boolean implementsInterface(final int interfaceId) {
+            final BitSet closure = interfaceClosure;
+            return closure != null && closure.get(interfaceId);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Summary of every class in one JAR: its access flags, superclass, interfaces
+ * and which of the names the analysis looks for its constant pool mentions.
+ * <p>
+ * The summary is built in one streaming pass over the JAR and saved in a
+ * cache directory, where later builds find it as long as the JAR's path, size
+ * and modification time are unchanged.  With the summary at hand, the
+ * analysis need not open a class just to learn its ancestry or to find that
+ * it mentions nothing authorization-related.
+ */
+class ClassSummaryIndex {
+
+    private static final int MAGIC = 0x43534958; // "CSIX"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String CLASS_SUFFIX = ".class";
+    private static final String CACHE_FILE_SUFFIX = ".csidx";
+
+    /**
+     * What the index records about one class.
+     */
+    static class Summary {
+        private final int access;
+        private final String superName;
+        private final List<String> interfaces;
+        private final int mentions;
+
+        private Summary(final int access, final String superName, final List<String> interfaces,
+                final int mentions) {
+            this.access = access;
+            this.superName = superName;
+            this.interfaces = interfaces;
+            this.mentions = mentions;
+        }
+
+        int access() {
+            return access;
+        }
+
+        /**
+         * @return internal name of the superclass; null for java/lang/Object and module-info
+         */
+        String superName() {
+            return superName;
+        }
+
+        List<String> interfaces() {
+            return interfaces;
+        }
+
+        /**
+         * @return bit i set if the class's constant pool mentions the i-th name the index was built for
+         */
+        int mentions() {
+            return mentions;
+        }
+    }
+
+    private final Map<String,Summary> summaries;
+    private final boolean isFromCache;
+
+    private ClassSummaryIndex(final Map<String,Summary> summaries, final boolean isFromCache) {
+        this.summaries = summaries;
+        this.isFromCache = isFromCache;
+    }
+
+    /**
+     * @param internalClassName internal name (slash-separated) of the class
+     * @return the class's summary; null if the JAR has no such (readable) class
+     */
+    Summary get(final String internalClassName) {
+        return summaries.get(internalClassName);
+    }
+
+    /**
+     * @return whether the index was loaded from the cache rather than built from the JAR
+     */
+    boolean isFromCache() {
+        return isFromCache;
+    }
+
+    /**
+     * Loads a JAR's summary from the cache directory or, if it is not there or
+     * is out of date, builds it from the JAR and saves it there.
+     *
+     * @param jar the JAR to summarize
+     * @param cacheDir directory holding saved summaries; null to neither load nor save them
+     * @param names the names whose mention by each class is recorded; at most 32
+     * @return the JAR's summary
+     * @throws IOException if the JAR cannot be read
+     */
+    static ClassSummaryIndex load(final File jar, final File cacheDir, final List<String> names) throws IOException {
+        final File cacheFile = (cacheDir == null ? null : cacheFile(jar, cacheDir));
+        if (cacheFile != null && cacheFile.isFile()) {
+            try {
+                final Map<String,Summary> summaries = read(cacheFile, jar, names);
+                if (summaries != null) {
+                    return new ClassSummaryIndex(summaries, true);
+                }
+            } catch (IOException ex) {
+                // Unreadable or damaged; build the summary afresh.
+            }
+        }
+        final Map<String,Summary> summaries = build(jar, names);
+        if (cacheFile != null) {
+            try {
+                write(cacheFile, jar, names, summaries);
+            } catch (IOException ex) {
+                // The cache only saves time; the next build will try again.
+            }
+        }
+        return new ClassSummaryIndex(summaries, false);
+    }
+
+    private static File cacheFile(final File jar, final File cacheDir) {
+        return new File(cacheDir, jar.getName() + '-'
+                + Integer.toHexString(jar.getAbsolutePath().hashCode()) + CACHE_FILE_SUFFIX);
+    }
+
+    private static Map<String,Summary> build(final File jar, final List<String> names) throws IOException {
+        final byte[][] markers = ClassFileHeader.markers(names.toArray(new String[0]));
+        final Map<String,Summary> result = new HashMap<>();
+        final Map<String,String> internedNames = new HashMap<>();
+        final ClassFileBuffer classBuffer = ClassFileBuffer.acquire();
+        try (ZipInputStream zis = new ZipInputStream(new BufferedInputStream(new FileInputStream(jar)))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                final String entryName = entry.getName();
+                if ( ! entryName.endsWith(CLASS_SUFFIX) || entryName.startsWith("META-INF/")) {
+                    continue;
+                }
+                classBuffer.read(zis, entry.getSize());
+                final ClassFileHeader header;
+                try {
+                    header = new ClassFileHeader(classBuffer.bytes(), 0, classBuffer.length());
+                } catch (IllegalArgumentException ex) {
+                    /*
+                     * Leave the class out; looking it up reads its byte code,
+                     * which reports the problem in context.
+                     */
+                    continue;
+                }
+                final List<String> interfaces = new ArrayList<>(header.interfaces().length);
+                for (String i : header.interfaces()) {
+                    interfaces.add(intern(internedNames, i));
+                }
+                result.putIfAbsent(entryName.substring(0, entryName.length() - CLASS_SUFFIX.length()),
+                        new Summary(header.access(), intern(internedNames, header.superName()),
+                                interfaces, header.mentionedMarkers(markers)));
+            }
+        } finally {
+            classBuffer.release();
+        }
+        return result;
+    }
+
+    private static String intern(final Map<String,String> internedNames, final String name) {
+        if (name == null) {
+            return null;
+        }
+        final String existing = internedNames.putIfAbsent(name, name);
+        return (existing == null ? name : existing);
+    }
+
+    /*
+     * The file starts with what it was built from: the JAR's path, size and
+     * modification time and the names recorded.  A table of the distinct
+     * names follows, and then each class refers to names by their position in
+     * the table.
+     */
+    private static void write(final File cacheFile, final File jar, final List<String> names,
+            final Map<String,Summary> summaries) throws IOException {
+        Files.createDirectories(cacheFile.getParentFile().toPath());
+        final Map<String,Integer> table = new HashMap<>();
+        final List<String> strings = new ArrayList<>();
+        for (Map.Entry<String,Summary> e : summaries.entrySet()) {
+            tableIndex(table, strings, e.getKey());
+            tableIndex(table, strings, e.getValue().superName);
+            for (String i : e.getValue().interfaces) {
+                tableIndex(table, strings, i);
+            }
+        }
+        /*
+         * Write to a temporary file and move it into place so a concurrent
+         * build never sees half a file.
+         */
+        final File tempFile = File.createTempFile(cacheFile.getName(), ".tmp", cacheFile.getParentFile());
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(jar.getAbsolutePath());
+                out.writeLong(jar.length());
+                out.writeLong(jar.lastModified());
+                out.writeInt(names.size());
+                for (String name : names) {
+                    out.writeUTF(name);
+                }
+                out.writeInt(strings.size());
+                for (String s : strings) {
+                    out.writeUTF(s);
+                }
+                out.writeInt(summaries.size());
+                for (Map.Entry<String,Summary> e : summaries.entrySet()) {
+                    final Summary summary = e.getValue();
+                    out.writeInt(table.get(e.getKey()));
+                    out.writeShort(summary.access);
+                    out.writeInt(summary.superName == null ? -1 : table.get(summary.superName));
+                    out.writeShort(summary.interfaces.size());
+                    for (String i : summary.interfaces) {
+                        out.writeInt(table.get(i));
+                    }
+                    out.writeInt(summary.mentions);
+                }
+            }
+            Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    private static void tableIndex(final Map<String,Integer> table, final List<String> strings, final String s) {
+        if (s != null && ! table.containsKey(s)) {
+            table.put(s, strings.size());
+            strings.add(s);
+        }
+    }
+
+    /*
+     * Returns null if the saved summary was built from a different JAR or
+     * for different names.
+     */
+    private static Map<String,Summary> read(final File cacheFile, final File jar, final List<String> names) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+                    || ! in.readUTF().equals(jar.getAbsolutePath())
+                    || in.readLong() != jar.length()
+                    || in.readLong() != jar.lastModified()) {
+                return null;
+            }
+            final int nameCount = in.readInt();
+            if (nameCount != names.size()) {
+                return null;
+            }
+            for (String name : names) {
+                if ( ! in.readUTF().equals(name)) {
+                    return null;
+                }
+            }
+            final String[] strings = new String[in.readInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = in.readUTF();
+            }
+            final int classCount = in.readInt();
+            final Map<String,Summary> result = new HashMap<>(classCount * 4 / 3 + 1);
+            for (int c = 0; c < classCount; c++) {
+                final String className = strings[in.readInt()];
+                final int access = in.readUnsignedShort();
+                final int superIndex = in.readInt();
+                final String[] interfaces = new String[in.readUnsignedShort()];
+                for (int i = 0; i < interfaces.length; i++) {
+                    interfaces[i] = strings[in.readInt()];
+                }
+                result.put(className, new Summary(access, (superIndex == -1 ? null : strings[superIndex]),
+                        (interfaces.length == 0 ? Collections.emptyList() : Arrays.asList(interfaces)),
+                        in.readInt()));
+            }
+            return result;
+        } catch (ArrayIndexOutOfBoundsException ex) {
+            throw new IOException("Damaged class summary " + cacheFile, ex);
+        }
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The index of admin commands which {@link CommandSecurityIndexProcessor}
+ * writes during compilation and the type processor reads instead of the
+ * commands' byte code.
+ * <p>
+ * For each command class the index holds what the class file would tell the
+ * analysis: the class's name, access flags, superclass and interfaces, the
+ * class-level annotations the analysis acts on and the fields which carry one
+ * of the field-level annotations it acts on.  Annotation values are recorded
+ * with the same tags the class file format uses, so they can be reported
+ * exactly as a class file reader would report them.  The size, CRC-32 and
+ * time stamp of each command's class file, when the processor could see it,
+ * let readers tell whether the class has been recompiled since.
+ * <p>
+ * This class depends on nothing but the JDK so that the annotation processor
+ * can use it inside javac.
+ */
+class CommandSecurityIndex {
+
+    /**
+     * Where the index lives in a module's output directory or JAR.
+     */
+    static final String PATH = "META-INF/command-security.idx";
+
+    private static final int MAGIC = 0x43534349; // "CSCI"
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * Class-level annotations recorded in the index.
+     */
+    static final Collection<String> CLASS_ANNOTATION_DESCS = Arrays.asList(
+            "Lorg/glassfish/api/admin/AccessRequired;",
+            "Lorg/glassfish/api/admin/AccessRequired$List;",
+            "Lorg/glassfish/api/admin/AccessRequired$Delegate;",
+            "Lorg/glassfish/api/admin/RestEndpoint;",
+            "Lorg/glassfish/api/admin/RestEndpoints;",
+            "Lorg/jvnet/hk2/annotations/Service;",
+            "Lorg/glassfish/api/admin/Supplemental;");
+
+    /**
+     * Field-level annotations recorded in the index.  Only fields carrying at
+     * least one of these are recorded.
+     */
+    static final Collection<String> FIELD_ANNOTATION_DESCS = Arrays.asList(
+            "Lorg/glassfish/api/Param;",
+            "Lorg/glassfish/api/admin/AccessRequired$To;",
+            "Lorg/glassfish/api/admin/AccessRequired$NewChild;");
+
+    /**
+     * One annotation element value.  The tag is the class file's element value
+     * tag; the value is a boxed primitive for 'B', 'C', 'S', 'I', 'Z', 'F',
+     * 'J' and 'D', a String for 's', a type descriptor for 'c', a two-element
+     * array of enum type descriptor and constant name for 'e', an Annotation
+     * for '@' and a List of Values for '['.
+     */
+    static class Value {
+        final char tag;
+        final Object value;
+
+        Value(final char tag, final Object value) {
+            this.tag = tag;
+            this.value = value;
+        }
+    }
+
+    static class Annotation {
+        final String desc;
+        final boolean isVisible;
+        final List<String> names = new ArrayList<>();
+        final List<Value> values = new ArrayList<>();
+
+        Annotation(final String desc, final boolean isVisible) {
+            this.desc = desc;
+            this.isVisible = isVisible;
+        }
+
+        void add(final String name, final Value value) {
+            names.add(name);
+            values.add(value);
+        }
+    }
+
+    static class Field {
+        final int access;
+        final String name;
+        final String desc;
+        final List<Annotation> annotations = new ArrayList<>();
+
+        Field(final int access, final String name, final String desc) {
+            this.access = access;
+            this.name = name;
+            this.desc = desc;
+        }
+    }
+
+    static class IndexedCommand {
+        final String name;
+        final int access;
+        final String superName;
+        final List<String> interfaces;
+        final List<Annotation> annotations = new ArrayList<>();
+        final List<Field> fields = new ArrayList<>();
+
+        /*
+         * The class file the entry was made from; a size of -1 if unknown.
+         */
+        long classFileSize = -1;
+        long classFileCrc;
+        long classFileLastModified;
+
+        /**
+         * @param name internal name of the class
+         * @param access the class's access flags
+         * @param superName internal name of the superclass; null for none
+         * @param interfaces internal names of the interfaces the class implements directly
+         */
+        IndexedCommand(final String name, final int access, final String superName, final List<String> interfaces) {
+            this.name = name;
+            this.access = access;
+            this.superName = superName;
+            this.interfaces = interfaces;
+        }
+
+        /**
+         * Records the class file this entry describes.
+         *
+         * @param size the class file's length in bytes
+         * @param crc the CRC-32 of the class file's bytes
+         * @param lastModified the class file's time stamp, in milliseconds since the epoch
+         */
+        void setClassFile(final long size, final long crc, final long lastModified) {
+            this.classFileSize = size;
+            this.classFileCrc = crc;
+            this.classFileLastModified = lastModified;
+        }
+    }
+
+    private CommandSecurityIndex() {
+    }
+
+    static void write(final OutputStream os, final Collection<IndexedCommand> commands) throws IOException {
+        final DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(commands.size());
+        for (IndexedCommand command : commands) {
+            out.writeUTF(command.name);
+            out.writeLong(command.classFileSize);
+            out.writeLong(command.classFileCrc);
+            out.writeLong(command.classFileLastModified);
+            out.writeInt(command.access);
+            out.writeUTF(command.superName == null ? "" : command.superName);
+            out.writeShort(command.interfaces.size());
+            for (String i : command.interfaces) {
+                out.writeUTF(i);
+            }
+            writeAnnotations(out, command.annotations);
+            out.writeShort(command.fields.size());
+            for (Field field : command.fields) {
+                out.writeInt(field.access);
+                out.writeUTF(field.name);
+                out.writeUTF(field.desc);
+                writeAnnotations(out, field.annotations);
+            }
+        }
+        out.flush();
+    }
+
+    private static void writeAnnotations(final DataOutputStream out, final List<Annotation> annotations) throws IOException {
+        out.writeShort(annotations.size());
+        for (Annotation annotation : annotations) {
+            out.writeBoolean(annotation.isVisible);
+            writeAnnotation(out, annotation);
+        }
+    }
+
+    private static void writeAnnotation(final DataOutputStream out, final Annotation annotation) throws IOException {
+        out.writeUTF(annotation.desc);
+        out.writeShort(annotation.values.size());
+        for (int i = 0; i < annotation.values.size(); i++) {
+            out.writeUTF(annotation.names.get(i));
+            writeValue(out, annotation.values.get(i));
+        }
+    }
+
+    private static void writeValue(final DataOutputStream out, final Value v) throws IOException {
+        out.writeByte(v.tag);
+        switch (v.tag) {
+            case 'B':
+                out.writeInt((Byte) v.value);
+                break;
+            case 'C':
+                out.writeInt((Character) v.value);
+                break;
+            case 'S':
+                out.writeInt((Short) v.value);
+                break;
+            case 'I':
+                out.writeInt((Integer) v.value);
+                break;
+            case 'Z':
+                out.writeInt((Boolean) v.value ? 1 : 0);
+                break;
+            case 'F':
+                out.writeFloat((Float) v.value);
+                break;
+            case 'J':
+                out.writeLong((Long) v.value);
+                break;
+            case 'D':
+                out.writeDouble((Double) v.value);
+                break;
+            case 's':
+            case 'c':
+                out.writeUTF((String) v.value);
+                break;
+            case 'e':
+                out.writeUTF(((String[]) v.value)[0]);
+                out.writeUTF(((String[]) v.value)[1]);
+                break;
+            case '@':
+                writeAnnotation(out, (Annotation) v.value);
+                break;
+            case '[':
+                final List<?> elements = (List<?>) v.value;
+                out.writeShort(elements.size());
+                for (Object element : elements) {
+                    writeValue(out, (Value) element);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unrecognized element value tag " + v.tag);
+        }
+    }
+
+    /**
+     * Reads an index.
+     *
+     * @param is the index; not closed
+     * @return the indexed commands, by internal class name
+     * @throws IOException if the index cannot be read or is not in a format this version understands
+     */
+    static Map<String,IndexedCommand> read(final InputStream is) throws IOException {
+        final DataInputStream in = new DataInputStream(is);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a command security index");
+        }
+        final int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported command security index version " + version);
+        }
+        final int commandCount = in.readInt();
+        final Map<String,IndexedCommand> result = new HashMap<>();
+        for (int c = 0; c < commandCount; c++) {
+            final String name = in.readUTF();
+            final long classFileSize = in.readLong();
+            final long classFileCrc = in.readLong();
+            final long classFileLastModified = in.readLong();
+            final int access = in.readInt();
+            final String superName = in.readUTF();
+            final String[] interfaces = new String[in.readUnsignedShort()];
+            for (int i = 0; i < interfaces.length; i++) {
+                interfaces[i] = in.readUTF();
+            }
+            final IndexedCommand command = new IndexedCommand(name, access,
+                    (superName.isEmpty() ? null : superName),
+                    (interfaces.length == 0 ? Collections.emptyList() : Arrays.asList(interfaces)));
+            command.setClassFile(classFileSize, classFileCrc, classFileLastModified);
+            readAnnotations(in, command.annotations);
+            final int fieldCount = in.readUnsignedShort();
+            for (int f = 0; f < fieldCount; f++) {
+                final Field field = new Field(in.readInt(), in.readUTF(), in.readUTF());
+                readAnnotations(in, field.annotations);
+                command.fields.add(field);
+            }
+            result.put(name, command);
+        }
+        return result;
+    }
+
+    private static void readAnnotations(final DataInputStream in, final List<Annotation> annotations) throws IOException {
+        final int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            final boolean isVisible = in.readBoolean();
+            annotations.add(readAnnotation(in, isVisible));
+        }
+    }
+
+    private static Annotation readAnnotation(final DataInputStream in, final boolean isVisible) throws IOException {
+        final Annotation annotation = new Annotation(in.readUTF(), isVisible);
+        final int valueCount = in.readUnsignedShort();
+        for (int i = 0; i < valueCount; i++) {
+            annotation.add(in.readUTF(), readValue(in));
+        }
+        return annotation;
+    }
+
+    private static Value readValue(final DataInputStream in) throws IOException {
+        final char tag = (char) in.readUnsignedByte();
+        switch (tag) {
+            case 'B':
+                return new Value(tag, (byte) in.readInt());
+            case 'C':
+                return new Value(tag, (char) in.readInt());
+            case 'S':
+                return new Value(tag, (short) in.readInt());
+            case 'I':
+                return new Value(tag, in.readInt());
+            case 'Z':
+                return new Value(tag, in.readInt() != 0);
+            case 'F':
+                return new Value(tag, in.readFloat());
+            case 'J':
+                return new Value(tag, in.readLong());
+            case 'D':
+                return new Value(tag, in.readDouble());
+            case 's':
+            case 'c':
+                return new Value(tag, in.readUTF());
+            case 'e':
+                return new Value(tag, new String[] {in.readUTF(), in.readUTF()});
+            case '@':
+                return new Value(tag, readAnnotation(in, true));
+            case '[':
+                final int count = in.readUnsignedShort();
+                final List<Value> elements = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    elements.add(readValue(in));
+                }
+                return new Value(tag, elements);
+            default:
+                throw new IOException("Unrecognized element value tag " + tag);
+        }
+    }
+}
@@ -0,0 +1,395 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+
+/**
+ * Annotation processor which records, while javac compiles a module, what the
+ * command security analysis needs to know about each admin command: its
+ * ancestry, its authorization, REST endpoint, service and supplemental
+ * annotations and its @Param and authorization-target fields.  The result is
+ * written to {@value CommandSecurityIndex#PATH} in the class output, where the
+ * check and print goals read it instead of the commands' byte code.
+ * <p>
+ * To use it, add this plug-in to the compiler plug-in's annotation processor
+ * path.  Commands the index does not cover, and commands compiled after the
+ * index was written, are analyzed from their byte code as before.
+ * <p>
+ * Under javac the index is written once compilation has finished, so it can
+ * record each command's class file (size, CRC-32 and time stamp); the goals
+ * use an entry only while its class file still matches.  Under other
+ * compilers the index is written when annotation processing ends, without
+ * that record, and the goals then analyze every command from its byte code.
+ */
+public class CommandSecurityIndexProcessor extends AbstractProcessor {
+
+    private static final String SERVICE_ANNO_NAME = "org.jvnet.hk2.annotations.Service";
+    private static final String ADMIN_COMMAND_NAME = "org.glassfish.api.admin.AdminCommand";
+
+    private final Map<String,CommandSecurityIndex.IndexedCommand> commands = new LinkedHashMap<>();
+
+    /*
+     * Whether javac will report the end of compilation, when the class files
+     * exist and the index can describe them.
+     */
+    private boolean isWaitingForClassFiles = false;
+    private FileObject index = null;
+
+    @Override
+    public synchronized void init(final ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        try {
+            JavacTask.instance(processingEnv).addTaskListener(new TaskListener() {
+                @Override
+                public void finished(final TaskEvent e) {
+                    if (e.getKind() == TaskEvent.Kind.COMPILATION && index != null) {
+                        writeIndex(true);
+                    }
+                }
+            });
+            isWaitingForClassFiles = true;
+        } catch (IllegalArgumentException | LinkageError ex) {
+            /*
+             * Not javac, or javac wrapped by a tool: write the index without
+             * class file details.
+             */
+            isWaitingForClassFiles = false;
+        }
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(SERVICE_ANNO_NAME);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            if ( ! commands.isEmpty()) {
+                /*
+                 * The Filer takes new files only while processing, so the
+                 * index is created now even if it is written later.
+                 */
+                try {
+                    index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                            CommandSecurityIndex.PATH);
+                } catch (IOException ex) {
+                    warnNotWritten(ex);
+                    return false;
+                }
+                if ( ! isWaitingForClassFiles) {
+                    writeIndex(false);
+                }
+            }
+            return false;
+        }
+        final TypeElement service = processingEnv.getElementUtils().getTypeElement(SERVICE_ANNO_NAME);
+        final TypeElement adminCommand = processingEnv.getElementUtils().getTypeElement(ADMIN_COMMAND_NAME);
+        if (service == null || adminCommand == null) {
+            return false;
+        }
+        final TypeMirror adminCommandType = processingEnv.getTypeUtils().erasure(adminCommand.asType());
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(service))) {
+            if (type.getKind() == ElementKind.CLASS
+                    && processingEnv.getTypeUtils().isSubtype(
+                            processingEnv.getTypeUtils().erasure(type.asType()), adminCommandType)) {
+                final CommandSecurityIndex.IndexedCommand command = indexedCommand(type);
+                commands.put(command.name, command);
+            }
+        }
+        return false;
+    }
+
+    private void writeIndex(final boolean isWithClassFiles) {
+        try {
+            if (isWithClassFiles) {
+                recordClassFiles();
+            }
+            try (OutputStream os = index.openOutputStream()) {
+                CommandSecurityIndex.write(os, commands.values());
+            }
+        } catch (IOException | RuntimeException ex) {
+            warnNotWritten(ex);
+        } finally {
+            index = null;
+        }
+    }
+
+    /*
+     * The goals fall back to the byte code, so a missing index only costs
+     * time.
+     */
+    private void warnNotWritten(final Exception ex) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                "Unable to write " + CommandSecurityIndex.PATH + ": " + ex.getMessage());
+    }
+
+    /*
+     * The index lives in the class output directory, so the class files are
+     * found relative to it.  A command whose class file is missing keeps no
+     * record and so is never taken from the index.
+     */
+    private void recordClassFiles() throws IOException {
+        final URI indexURI = index.toUri();
+        if ( ! "file".equals(indexURI.getScheme())) {
+            return;
+        }
+        Path classOutput = Paths.get(indexURI).getParent();
+        for (int i = CommandSecurityIndex.PATH.indexOf('/'); i >= 0; i = CommandSecurityIndex.PATH.indexOf('/', i + 1)) {
+            classOutput = classOutput.getParent();
+        }
+        for (CommandSecurityIndex.IndexedCommand command : commands.values()) {
+            final Path classFile = classOutput.resolve(command.name + ".class");
+            if (Files.isRegularFile(classFile)) {
+                final byte[] bytes = Files.readAllBytes(classFile);
+                final CRC32 crc = new CRC32();
+                crc.update(bytes, 0, bytes.length);
+                command.setClassFile(bytes.length, crc.getValue(), Files.getLastModifiedTime(classFile).toMillis());
+            }
+        }
+    }
+
+    private CommandSecurityIndex.IndexedCommand indexedCommand(final TypeElement type) {
+        final TypeMirror superclass = type.getSuperclass();
+        final List<String> interfaces = new ArrayList<>();
+        for (TypeMirror i : type.getInterfaces()) {
+            interfaces.add(internalName((TypeElement) ((DeclaredType) i).asElement()));
+        }
+        final CommandSecurityIndex.IndexedCommand command = new CommandSecurityIndex.IndexedCommand(
+                internalName(type), classAccess(type),
+                (superclass.getKind() == TypeKind.DECLARED
+                        ? internalName((TypeElement) ((DeclaredType) superclass).asElement())
+                        : null),
+                interfaces);
+        addAnnotations(type, CommandSecurityIndex.CLASS_ANNOTATION_DESCS, command.annotations);
+
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            final CommandSecurityIndex.Field indexedField = new CommandSecurityIndex.Field(
+                    fieldAccess(field), field.getSimpleName().toString(), desc(field.asType()));
+            addAnnotations(field, null, indexedField.annotations);
+            for (CommandSecurityIndex.Annotation a : indexedField.annotations) {
+                if (CommandSecurityIndex.FIELD_ANNOTATION_DESCS.contains(a.desc)) {
+                    command.fields.add(indexedField);
+                    break;
+                }
+            }
+        }
+        return command;
+    }
+
+    /*
+     * Records the element's annotations which reach the class file, optionally
+     * only those of the given types.
+     */
+    private void addAnnotations(final Element element, final Collection<String> descs,
+            final List<CommandSecurityIndex.Annotation> result) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            final TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            final String desc = desc(mirror.getAnnotationType());
+            final Retention retention = annotationType.getAnnotation(Retention.class);
+            final RetentionPolicy policy = (retention == null ? RetentionPolicy.CLASS : retention.value());
+            if (policy == RetentionPolicy.SOURCE || (descs != null && ! descs.contains(desc))) {
+                continue;
+            }
+            result.add(annotation(mirror, policy == RetentionPolicy.RUNTIME));
+        }
+    }
+
+    private CommandSecurityIndex.Annotation annotation(final AnnotationMirror mirror, final boolean isVisible) {
+        final CommandSecurityIndex.Annotation result = new CommandSecurityIndex.Annotation(
+                desc(mirror.getAnnotationType()), isVisible);
+        for (Map.Entry<? extends ExecutableElement,? extends AnnotationValue> e : mirror.getElementValues().entrySet()) {
+            result.add(e.getKey().getSimpleName().toString(), value(e.getKey().getReturnType(), e.getValue()));
+        }
+        return result;
+    }
+
+    /*
+     * The element's declared type decides the tag; the value alone cannot tell
+     * a byte from an int, for instance, once javac has folded constants.
+     */
+    private CommandSecurityIndex.Value value(final TypeMirror type, final AnnotationValue annotationValue) {
+        final Object v = annotationValue.getValue();
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return new CommandSecurityIndex.Value('Z', v);
+            case BYTE:
+                return new CommandSecurityIndex.Value('B', ((Number) v).byteValue());
+            case CHAR:
+                return new CommandSecurityIndex.Value('C', v);
+            case SHORT:
+                return new CommandSecurityIndex.Value('S', ((Number) v).shortValue());
+            case INT:
+                return new CommandSecurityIndex.Value('I', ((Number) v).intValue());
+            case LONG:
+                return new CommandSecurityIndex.Value('J', ((Number) v).longValue());
+            case FLOAT:
+                return new CommandSecurityIndex.Value('F', ((Number) v).floatValue());
+            case DOUBLE:
+                return new CommandSecurityIndex.Value('D', ((Number) v).doubleValue());
+            case ARRAY:
+                final TypeMirror componentType = ((ArrayType) type).getComponentType();
+                final List<CommandSecurityIndex.Value> elements = new ArrayList<>();
+                for (Object element : (List<?>) v) {
+                    elements.add(value(componentType, (AnnotationValue) element));
+                }
+                return new CommandSecurityIndex.Value('[', elements);
+            default:
+                break;
+        }
+        if (v instanceof String) {
+            return new CommandSecurityIndex.Value('s', v);
+        } else if (v instanceof TypeMirror) {
+            return new CommandSecurityIndex.Value('c', desc((TypeMirror) v));
+        } else if (v instanceof VariableElement) {
+            return new CommandSecurityIndex.Value('e', new String[] {
+                desc(((VariableElement) v).asType()), ((VariableElement) v).getSimpleName().toString()});
+        } else if (v instanceof AnnotationMirror) {
+            return new CommandSecurityIndex.Value('@', annotation((AnnotationMirror) v, true));
+        }
+        throw new IllegalArgumentException("Unrecognized annotation value " + annotationValue);
+    }
+
+    private String internalName(final TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString().replace('.', '/');
+    }
+
+    private String desc(final TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "Z";
+            case BYTE:
+                return "B";
+            case CHAR:
+                return "C";
+            case SHORT:
+                return "S";
+            case INT:
+                return "I";
+            case LONG:
+                return "J";
+            case FLOAT:
+                return "F";
+            case DOUBLE:
+                return "D";
+            case VOID:
+                return "V";
+            case ARRAY:
+                return '[' + desc(((ArrayType) type).getComponentType());
+            default:
+                final TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+                if (erased.getKind() != TypeKind.DECLARED) {
+                    return "Ljava/lang/Object;";
+                }
+                return 'L' + internalName((TypeElement) ((DeclaredType) erased).asElement()) + ';';
+        }
+    }
+
+    /*
+     * Access flags as javac writes them to the class file, where a protected
+     * member class is public and a private one package-private.
+     */
+    private static int classAccess(final TypeElement type) {
+        final Set<Modifier> modifiers = type.getModifiers();
+        int access = 0x0020; // ACC_SUPER
+        if (modifiers.contains(Modifier.PUBLIC)
+                || (type.getNestingKind() == NestingKind.MEMBER && modifiers.contains(Modifier.PROTECTED))) {
+            access |= 0x0001;
+        }
+        if (modifiers.contains(Modifier.FINAL)) {
+            access |= 0x0010;
+        }
+        if (modifiers.contains(Modifier.ABSTRACT)) {
+            access |= 0x0400;
+        }
+        return access;
+    }
+
+    private static int fieldAccess(final VariableElement field) {
+        final Set<Modifier> modifiers = field.getModifiers();
+        int access = 0;
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            access |= 0x0001;
+        }
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            access |= 0x0002;
+        }
+        if (modifiers.contains(Modifier.PROTECTED)) {
+            access |= 0x0004;
+        }
+        if (modifiers.contains(Modifier.STATIC)) {
+            access |= 0x0008;
+        }
+        if (modifiers.contains(Modifier.FINAL)) {
+            access |= 0x0010;
+        }
+        if (modifiers.contains(Modifier.VOLATILE)) {
+            access |= 0x0040;
+        }
+        if (modifiers.contains(Modifier.TRANSIENT)) {
+            access |= 0x0080;
+        }
+        return access;
+    }
+}
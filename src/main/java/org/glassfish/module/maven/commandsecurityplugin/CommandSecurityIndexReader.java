@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Type;
+
+/**
+ * Reports a command recorded in a command security index to a class visitor
+ * the way the analysis engines report a class file: header, class-level
+ * annotations (visible ones first), then the fields which carry one of the
+ * field annotations of interest.  Annotation values are reported as ASM's
+ * ClassReader reports them.
+ * <p>
+ * The index does not keep the class file version; the visitor is told 0.
+ */
+class CommandSecurityIndexReader {
+
+    private CommandSecurityIndexReader() {
+    }
+
+    static void accept(final CommandSecurityIndex.IndexedCommand command, final ClassVisitor visitor,
+            final Collection<String> fieldAnnotationDescs) {
+        visitor.visit(0, command.access, command.name, null, command.superName,
+                command.interfaces.toArray(new String[0]));
+
+        for (CommandSecurityIndex.Annotation annotation : visibleFirst(command.annotations)) {
+            readAnnotation(annotation, visitor.visitAnnotation(annotation.desc, annotation.isVisible));
+        }
+
+        for (CommandSecurityIndex.Field field : command.fields) {
+            if ( ! isAnnotatedWithAny(field.annotations, fieldAnnotationDescs)) {
+                continue;
+            }
+            final FieldVisitor fieldVisitor = visitor.visitField(field.access, field.name, field.desc, null, null);
+            if (fieldVisitor == null) {
+                continue;
+            }
+            for (CommandSecurityIndex.Annotation annotation : visibleFirst(field.annotations)) {
+                readAnnotation(annotation, fieldVisitor.visitAnnotation(annotation.desc, annotation.isVisible));
+            }
+            fieldVisitor.visitEnd();
+        }
+        visitor.visitEnd();
+    }
+
+    private static List<CommandSecurityIndex.Annotation> visibleFirst(
+            final List<CommandSecurityIndex.Annotation> annotations) {
+        final List<CommandSecurityIndex.Annotation> result = new ArrayList<>(annotations.size());
+        for (CommandSecurityIndex.Annotation annotation : annotations) {
+            if (annotation.isVisible) {
+                result.add(annotation);
+            }
+        }
+        for (CommandSecurityIndex.Annotation annotation : annotations) {
+            if ( ! annotation.isVisible) {
+                result.add(annotation);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isAnnotatedWithAny(final List<CommandSecurityIndex.Annotation> annotations,
+            final Collection<String> descs) {
+        for (CommandSecurityIndex.Annotation annotation : annotations) {
+            if (descs.contains(annotation.desc)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void readAnnotation(final CommandSecurityIndex.Annotation annotation,
+            final AnnotationVisitor visitor) {
+        if (visitor == null) {
+            return;
+        }
+        for (int i = 0; i < annotation.values.size(); i++) {
+            readValue(annotation.names.get(i), annotation.values.get(i), visitor);
+        }
+        visitor.visitEnd();
+    }
+
+    private static void readValue(final String name, final CommandSecurityIndex.Value value,
+            final AnnotationVisitor visitor) {
+        switch (value.tag) {
+            case 'c':
+                visitor.visit(name, Type.getType((String) value.value));
+                break;
+            case 'e':
+                final String[] constant = (String[]) value.value;
+                visitor.visitEnum(name, constant[0], constant[1]);
+                break;
+            case '@':
+                final CommandSecurityIndex.Annotation nested = (CommandSecurityIndex.Annotation) value.value;
+                readAnnotation(nested, visitor.visitAnnotation(name, nested.desc));
+                break;
+            case '[':
+                readArray(name, (List<?>) value.value, visitor);
+                break;
+            default:
+                visitor.visit(name, value.value);
+                break;
+        }
+    }
+
+    /*
+     * Like ASM, reports a non-empty array of a primitive type as a single
+     * primitive array value and any other array element by element.
+     */
+    private static void readArray(final String name, final List<?> elements, final AnnotationVisitor visitor) {
+        final Object primitiveArray = (elements.isEmpty()
+                ? null : primitiveArray(((CommandSecurityIndex.Value) elements.get(0)).tag, elements));
+        if (primitiveArray != null) {
+            visitor.visit(name, primitiveArray);
+            return;
+        }
+        final AnnotationVisitor arrayVisitor = visitor.visitArray(name);
+        if (arrayVisitor == null) {
+            return;
+        }
+        for (Object element : elements) {
+            readValue(null, (CommandSecurityIndex.Value) element, arrayVisitor);
+        }
+        arrayVisitor.visitEnd();
+    }
+
+    private static Object primitiveArray(final char tag, final List<?> elements) {
+        final int n = elements.size();
+        switch (tag) {
+            case 'B': {
+                final byte[] result = new byte[n];
+                for (int i = 0; i < n; i++) {
+                    result[i] = (Byte) element(elements, i);
+                }
+                return result;
+            }
+            case 'C': {
+                final char[] result = new char[n];
+                for (int i = 0; i < n; i++) {
+                    result[i] = (Character) element(elements, i);
+                }
+                return result;
+            }
+            case 'S': {
+                final short[] result = new short[n];
+                for (int i = 0; i < n; i++) {
+                    result[i] = (Short) element(elements, i);
+                }
+                return result;
+            }
+            case 'I': {
+                final int[] result = new int[n];
+                for (int i = 0; i < n; i++) {
+                    result[i] = (Integer) element(elements, i);
+                }
+                return result;
+            }
+            case 'Z': {
+                final boolean[] result = new boolean[n];
+                for (int i = 0; i < n; i++) {
+                    result[i] = (Boolean) element(elements, i);
+                }
+                return result;
+            }
+            case 'F': {
+                final float[] result = new float[n];
+                for (int i = 0; i < n; i++) {
+                    result[i] = (Float) element(elements, i);
+                }
+                return result;
+            }
+            case 'J': {
+                final long[] result = new long[n];
+                for (int i = 0; i < n; i++) {
+                    result[i] = (Long) element(elements, i);
+                }
+                return result;
+            }
+            case 'D': {
+                final double[] result = new double[n];
+                for (int i = 0; i < n; i++) {
+                    result[i] = (Double) element(elements, i);
+                }
+                return result;
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static Object element(final List<?> elements, final int i) {
+        return ((CommandSecurityIndex.Value) elements.get(i)).value;
+    }
+}
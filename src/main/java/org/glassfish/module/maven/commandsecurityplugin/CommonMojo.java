@@ -18,10 +18,18 @@
 
 package org.glassfish.module.maven.commandsecurityplugin;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 
@@ -31,6 +39,12 @@ import org.apache.maven.project.MavenProject;
  */
 public abstract class CommonMojo extends AbstractMojo {
 
+    /**
+     * Name of the file, in the build directory, listing where the analysis
+     * took each class from.
+     */
+    static final String CLASS_SOURCES_FILE = "command-security-class-sources.txt";
+
     /**
      * The maven project.
      */
@@ -50,6 +64,260 @@ public abstract class CommonMojo extends AbstractMojo {
     @Parameter(property="reactorProjects", required=true, readonly=true)
     protected List reactorProjects;
 
+    /**
+     * Whether each hk2-locator file's parse is also checked against hk2's own
+     * parser.  The check runs alongside the analysis; differences across the
+     * whole build are reported after the last project.
+     */
     @Parameter(property="command-security-maven-plugin.isCheckAPIvsParse", readonly=true, defaultValue="false")
     protected String isCheckAPIvsParse;
+
+    /**
+     * Whether classes whose constant pool mentions no authorization-related
+     * type are analyzed from their header only, skipping the full byte code
+     * scan.
+     */
+    @Parameter(property="command-security-maven-plugin.isPrefilterEnabled", defaultValue="true")
+    protected String isPrefilterEnabled;
+
+    /**
+     * Whether commands recorded in a command security index
+     * (META-INF/command-security.idx), which this plug-in's annotation
+     * processor writes at compile time, are analyzed from the index instead
+     * of from their byte code.
+     */
+    @Parameter(property="command-security-maven-plugin.isCommandIndexEnabled", defaultValue="true")
+    protected String isCommandIndexEnabled;
+
+    /**
+     * Whether classes in JARs which carry a Jandex index (META-INF/jandex.idx)
+     * are analyzed from the index instead of from their byte code.  Classes in
+     * JARs without an index, and in directories, are always read from their
+     * byte code.
+     */
+    @Parameter(property="command-security-maven-plugin.isJandexEnabled", defaultValue="true")
+    protected String isJandexEnabled;
+
+    /**
+     * Whether each JAR without a Jandex index is summarized in one pass: the
+     * superclass and interfaces of its classes and whether each mentions
+     * anything authorization-related.  Classes the summary shows to be
+     * irrelevant, and the ancestry of interfaces and config beans, are then
+     * taken from the summary instead of the class files.
+     */
+    @Parameter(property="command-security-maven-plugin.isJarSummaryEnabled", defaultValue="true")
+    protected String isJarSummaryEnabled;
+
+    /**
+     * Directory where JAR summaries are saved so later builds can reuse them.
+     * If empty, summaries are kept for the current build only.
+     */
+    @Parameter(property="command-security-maven-plugin.jarSummaryCacheDirectory",
+            defaultValue="${settings.localRepository}/.cache/command-security-maven-plugin")
+    protected String jarSummaryCacheDirectory;
+
+    /**
+     * Comma-separated packages whose classes, and those of their subpackages,
+     * are treated as known non-commands without their byte code being read.
+     * Every ancestor walk that reaches such a class (typically
+     * java.lang.Object) stops there.  Set to an empty value to analyze every
+     * ancestor.
+     */
+    @Parameter(property="command-security-maven-plugin.terminalPackages",
+            defaultValue="java,javax,jdk,sun,jakarta,org.glassfish.hk2,org.jvnet.hk2")
+    protected String terminalPackages;
+
+    /**
+     * Comma-separated names of the hk2-locator files, in
+     * META-INF/hk2-locator/ of the module and of each class path element,
+     * whose inhabitants are read; "*" reads every one found.
+     */
+    @Parameter(property="command-security-maven-plugin.locatorIncludes", defaultValue="*")
+    protected String locatorIncludes;
+
+    /**
+     * Comma-separated names of hk2-locator files not to read even if
+     * locatorIncludes includes them.
+     */
+    @Parameter(property="command-security-maven-plugin.locatorExcludes", defaultValue="")
+    protected String locatorExcludes;
+
+    /**
+     * How many threads analyze each module's commands.  Commands sharing an
+     * ancestor wait for a single analysis of it.  If empty, one per available
+     * processor; "1" analyzes one command at a time.  Debug logging always
+     * analyzes one command at a time so the trace reads in order.
+     */
+    @Parameter(property="command-security-maven-plugin.analysisThreads", defaultValue="")
+    protected String analysisThreads;
+
+    /**
+     * Which engine parses class files for the analysis: "asm" runs every class
+     * through ASM; "minimal" reads only the class header, the class-level
+     * annotations and the annotations of fields which might be @Params or
+     * carry @AccessRequired.To or .NewChild.
+     */
+    @Parameter(property="command-security-maven-plugin.analysisEngine", defaultValue=AnalysisEngine.ASM)
+    protected String analysisEngine;
+
+    /**
+     * Comma-separated analysis engines to benchmark against each other, the
+     * reference engine first (for example "asm,minimal").  Every
+     * class analyzed is also parsed by each of these engines; their times and
+     * whether their results agree are logged after the last project.
+     */
+    @Parameter(property="command-security-maven-plugin.benchmarkEngines", defaultValue="")
+    protected String benchmarkEngines;
+
+    /**
+     * Applies the analysis settings common to all goals to the type processor.
+     *
+     * @param typeProcessor the type processor to configure
+     * @throws MojoExecutionException if a setting has an unusable value
+     */
+    protected void configure(final TypeProcessorImpl typeProcessor) throws MojoExecutionException {
+        typeProcessor.setSession(session);
+        typeProcessor.setPrefilterEnabled(Boolean.parseBoolean(isPrefilterEnabled));
+        typeProcessor.setCommandIndexEnabled(Boolean.parseBoolean(isCommandIndexEnabled));
+        typeProcessor.setJandexEnabled(Boolean.parseBoolean(isJandexEnabled));
+        typeProcessor.setSummaries(Boolean.parseBoolean(isJarSummaryEnabled),
+                (jarSummaryCacheDirectory == null || jarSummaryCacheDirectory.trim().isEmpty()
+                        ? null : new File(jarSummaryCacheDirectory.trim())));
+        typeProcessor.setEngine(engine(analysisEngine));
+        typeProcessor.setTerminalPackages(names(terminalPackages));
+        typeProcessor.setAnalysisThreads(threads(analysisThreads));
+        typeProcessor.setLocators((locatorIncludes == null ? Collections.singletonList("*") : names(locatorIncludes)),
+                names(locatorExcludes));
+        if (benchmarkEngines != null && ! benchmarkEngines.trim().isEmpty()) {
+            final List<AnalysisEngine> engines = new ArrayList<>();
+            for (String engineName : benchmarkEngines.split(",")) {
+                engines.add(engine(engineName.trim()));
+            }
+            typeProcessor.setBenchmarkEngines(engines);
+        }
+    }
+
+    /*
+     * Splits a comma-separated setting, dropping empty names.
+     */
+    private static List<String> names(final String setting) {
+        final List<String> result = new ArrayList<>();
+        if (setting != null) {
+            for (String name : setting.split(",")) {
+                if ( ! name.trim().isEmpty()) {
+                    result.add(name.trim());
+                }
+            }
+        }
+        return result;
+    }
+
+    private static int threads(final String setting) throws MojoExecutionException {
+        if (setting == null || setting.trim().isEmpty()) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        try {
+            final int threads = Integer.parseInt(setting.trim());
+            if (threads >= 1) {
+                return threads;
+            }
+        } catch (NumberFormatException ex) {
+            // reported below
+        }
+        throw new MojoExecutionException("analysisThreads must be a positive number, not \"" + setting + "\"");
+    }
+
+    private static AnalysisEngine engine(final String name) throws MojoExecutionException {
+        try {
+            return AnalysisEngine.named(name);
+        } catch (IllegalArgumentException ex) {
+            throw new MojoExecutionException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Logs the reactor-wide analysis statistics once the last project in the
+     * reactor has been processed.
+     *
+     * @param typeProcessor the type processor which just ran
+     */
+    protected void logStatistics(final TypeProcessorImpl typeProcessor) {
+        final List<?> projects = reactorProjects;
+        if (project.equals(projects.get(projects.size() - 1))) {
+            getLog().info(typeProcessor.statistics().toString());
+            final EngineBenchmark benchmark = typeProcessor.benchmark();
+            if (benchmark != null) {
+                getLog().info(benchmark.toString());
+                if (benchmark.hasMismatches()) {
+                    getLog().warn(benchmark.mismatchReport());
+                }
+            }
+            final LocatorVerification verification = typeProcessor.verification();
+            if (verification != null) {
+                getLog().info(verification.toString());
+            }
+        }
+    }
+
+    /**
+     * Reports the parent cycles and dangling parents in the config bean graph
+     * which no earlier execution reported, so each is reported by the module
+     * which built or extended the graph with it.
+     *
+     * @param typeProcessor the type processor which just ran
+     */
+    protected void reportConfigBeanGraphProblems(final TypeProcessorImpl typeProcessor) {
+        final String report = typeProcessor.configBeanGraph().newProblemsReport();
+        if (report != null) {
+            getLog().warn(report);
+        }
+    }
+
+    /**
+     * Reports the locator files whose parse differed from hk2's that no
+     * earlier execution reported, as errors if failures are fatal.  Every
+     * execution reports, so no mismatch goes unreported however the
+     * reactor orders or overlaps its projects.
+     *
+     * @param typeProcessor the type processor which just ran
+     * @return whether new mismatches were reported; the caller fails the goal if failures are fatal
+     */
+    protected boolean reportLocatorMismatches(final TypeProcessorImpl typeProcessor) {
+        final LocatorVerification verification = typeProcessor.verification();
+        final String report = (verification == null ? null : verification.newMismatchReport());
+        if (report == null) {
+            return false;
+        }
+        if (typeProcessor.isFailureFatal()) {
+            getLog().error(report);
+        } else {
+            getLog().warn(report);
+        }
+        return true;
+    }
+
+    /**
+     * Writes which source (command security index, Jandex index, JAR summary
+     * or byte code) each class this module's analysis read came from to
+     * {@value #CLASS_SOURCES_FILE} in the build directory.
+     *
+     * @param typeProcessor the type processor which just ran
+     */
+    protected void writeClassSources(final TypeProcessorImpl typeProcessor) {
+        final String buildDirectory = project.getBuild().getDirectory();
+        final File reportFile = new File((buildDirectory != null
+                ? new File(buildDirectory) : new File(project.getBuild().getOutputDirectory()).getParentFile()),
+                CLASS_SOURCES_FILE);
+        final StringBuilder report = new StringBuilder();
+        for (Map.Entry<String,String> e : typeProcessor.classSources().entrySet()) {
+            report.append(e.getKey().replace('/', '.')).append('\t').append(e.getValue()).append(System.lineSeparator());
+        }
+        try {
+            Files.createDirectories(reportFile.getParentFile().toPath());
+            Files.write(reportFile.toPath(), report.toString().getBytes(StandardCharsets.UTF_8));
+            getLog().debug("Wrote the sources of " + typeProcessor.classSources().size() + " classes to " + reportFile);
+        } catch (IOException ex) {
+            getLog().warn("Unable to write " + reportFile, ex);
+        }
+    }
 }
@@ -0,0 +1,459 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The config beans known across the reactor and how they nest, stored as
+ * arrays indexed by dense node numbers.
+ * <p>
+ * Each config bean is one node, found by the symbol of its class name.  A
+ * node records its parent's node number.  The children a node declares are
+ * a chain of edges, each naming the child's node and the child's subpath in
+ * the parent; subpaths are kept once each in a side table.  A node's parent
+ * need not be a node whose children include it, nor the other way around.
+ * <p>
+ * Every change to a parent or to children increments the graph's version.
+ * Each node's path is kept once built, until a change to the node's parent
+ * or to its subpath in its parent, or to those of one of its ancestors,
+ * drops the paths of the node and of every node below it.  So that the nodes
+ * below can be found, each node also heads a chain of the nodes which have it
+ * as parent.
+ * <p>
+ * Parents are assigned without checks while locator files are loaded.  The
+ * whole graph is then checked at once, in time linear in its size, for
+ * parent chains which loop and for parents no locator file declares as a
+ * config bean.
+ */
+class ConfigBeanGraph {
+
+    static final int NONE = -1;
+
+    private final SymbolTable symbols;
+
+    private int[] nodeOfSymbol = new int[0];
+    private int[] symbolOfNode = new int[256];
+    private int[] parent = new int[256];
+    private int[] firstEdge = new int[256];
+    private boolean[] isDeclared = new boolean[256];
+    private int[] firstDependent = new int[256];
+    private int[] nextDependent = new int[256];
+    private int[] previousDependent = new int[256];
+    private String[] path = new String[256];
+    private int[] mark = new int[256];
+    private int nodeCount = 0;
+
+    private int[] edgeChild = new int[256];
+    private int[] edgeSubpath = new int[256];
+    private int[] nextEdge = new int[256];
+    private int edgeCount = 0;
+
+    private final List<String> subpaths = new ArrayList<>();
+    private final Map<String,Integer> subpathIds = new HashMap<>();
+
+    private int pathCount = 0;
+    private int markGeneration = 0;
+
+    private long version = 0;
+    private Analysis analysis = null;
+    private final Set<String> reportedProblems = new HashSet<>();
+
+    /**
+     * The outcome of checking the whole graph.
+     */
+    class Analysis {
+        private final long analyzedVersion;
+        private final List<List<String>> cycles = new ArrayList<>();
+        private final List<String> danglingParents = new ArrayList<>();
+
+        private Analysis(final long analyzedVersion) {
+            this.analyzedVersion = analyzedVersion;
+        }
+
+        /*
+         * One line per cycle and per dangling parent.
+         */
+        private List<String> problems() {
+            final List<String> result = new ArrayList<>();
+            for (List<String> cycle : cycles) {
+                result.add("cycle: " + String.join(" -> ", cycle) + " -> " + cycle.get(0));
+            }
+            for (String danglingParent : danglingParents) {
+                result.add("dangling parent: " + danglingParent);
+            }
+            return result;
+        }
+    }
+
+    ConfigBeanGraph(final SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    /**
+     * @param className the config bean's class name
+     * @return the config bean's node, added without parent or children if there was none
+     */
+    synchronized int node(final String className) {
+        final int symbol = symbols.symbol(className).id;
+        if (symbol >= nodeOfSymbol.length) {
+            final int oldLength = nodeOfSymbol.length;
+            nodeOfSymbol = Arrays.copyOf(nodeOfSymbol, Math.max(symbol + 1, oldLength * 2));
+            Arrays.fill(nodeOfSymbol, oldLength, nodeOfSymbol.length, NONE);
+        }
+        int result = nodeOfSymbol[symbol];
+        if (result == NONE) {
+            if (nodeCount == parent.length) {
+                symbolOfNode = Arrays.copyOf(symbolOfNode, nodeCount * 2);
+                parent = Arrays.copyOf(parent, nodeCount * 2);
+                firstEdge = Arrays.copyOf(firstEdge, nodeCount * 2);
+                isDeclared = Arrays.copyOf(isDeclared, nodeCount * 2);
+                firstDependent = Arrays.copyOf(firstDependent, nodeCount * 2);
+                nextDependent = Arrays.copyOf(nextDependent, nodeCount * 2);
+                previousDependent = Arrays.copyOf(previousDependent, nodeCount * 2);
+                path = Arrays.copyOf(path, nodeCount * 2);
+                mark = Arrays.copyOf(mark, nodeCount * 2);
+            }
+            result = nodeCount++;
+            symbolOfNode[result] = symbol;
+            parent[result] = NONE;
+            firstEdge[result] = NONE;
+            firstDependent[result] = NONE;
+            nextDependent[result] = NONE;
+            previousDependent[result] = NONE;
+            nodeOfSymbol[symbol] = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return how many nodes there are; nodes are numbered from 0
+     */
+    synchronized int size() {
+        return nodeCount;
+    }
+
+    /**
+     * @param node a node
+     * @return the node's class name, dotted
+     */
+    synchronized String className(final int node) {
+        return symbols.symbol(symbolOfNode[node]).dottedName;
+    }
+
+    /**
+     * @param node a node
+     * @return the node's parent; NONE if it has none
+     */
+    synchronized int parent(final int node) {
+        return parent[node];
+    }
+
+    /**
+     * Sets a node's parent.
+     *
+     * @param node the node
+     * @param newParent the parent; NONE for none
+     */
+    synchronized void setParent(final int node, final int newParent) {
+        if (parent[node] != newParent) {
+            unlinkDependent(node);
+            parent[node] = newParent;
+            linkDependent(node);
+            version++;
+            dropPaths(node);
+        }
+    }
+
+    /**
+     * Records that a locator file declares the node's class as a config bean,
+     * as opposed to just naming it as another config bean's parent, child or
+     * target.
+     *
+     * @param node the node
+     */
+    synchronized void declare(final int node) {
+        if ( ! isDeclared[node]) {
+            isDeclared[node] = true;
+            version++;
+        }
+    }
+
+    /**
+     * Records a child of a node unless the node already has that child.
+     *
+     * @param node the parent node
+     * @param child the child node
+     * @param subpath the child's subpath in the parent
+     * @return whether the child was added
+     */
+    synchronized boolean addChild(final int node, final int child, final String subpath) {
+        if (edge(node, child) != NONE) {
+            return false;
+        }
+        if (edgeCount == edgeChild.length) {
+            edgeChild = Arrays.copyOf(edgeChild, edgeCount * 2);
+            edgeSubpath = Arrays.copyOf(edgeSubpath, edgeCount * 2);
+            nextEdge = Arrays.copyOf(nextEdge, edgeCount * 2);
+        }
+        Integer subpathId = subpathIds.get(subpath);
+        if (subpathId == null) {
+            subpathId = subpaths.size();
+            subpaths.add(subpath);
+            subpathIds.put(subpath, subpathId);
+        }
+        final int edge = edgeCount++;
+        edgeChild[edge] = child;
+        edgeSubpath[edge] = subpathId;
+        nextEdge[edge] = firstEdge[node];
+        firstEdge[node] = edge;
+        version++;
+        if (parent[child] == node) {
+            dropPaths(child);
+        }
+        return true;
+    }
+
+    /**
+     * @param node a node
+     * @param child another node
+     * @return the child's subpath if the node declares it as a child; null otherwise
+     */
+    synchronized String subpath(final int node, final int child) {
+        final int edge = edge(node, child);
+        return (edge == NONE ? null : subpaths.get(edgeSubpath[edge]));
+    }
+
+    /**
+     * Checks the whole graph for parent chains which loop and for parents
+     * which are not declared config beans.  The outcome is kept until the
+     * graph next changes.
+     *
+     * @return the outcome
+     */
+    synchronized Analysis analyze() {
+        if (analysis != null && analysis.analyzedVersion == version) {
+            return analysis;
+        }
+        final Analysis result = new Analysis(version);
+
+        /*
+         * Each node has at most one parent, so following parents from each
+         * node not yet visited either ends, reaches a node an earlier walk
+         * finished with or comes back to a node on the current walk.  Only
+         * the last is a new cycle.  Every node is visited once.
+         */
+        final int[] walkOf = new int[nodeCount];
+        Arrays.fill(walkOf, NONE);
+        for (int start = 0; start < nodeCount; start++) {
+            if (walkOf[start] != NONE) {
+                continue;
+            }
+            int n = start;
+            while (n != NONE && walkOf[n] == NONE) {
+                walkOf[n] = start;
+                n = parent[n];
+            }
+            if (n != NONE && walkOf[n] == start) {
+                final List<String> cycle = new ArrayList<>();
+                int c = n;
+                do {
+                    cycle.add(className(c));
+                    c = parent[c];
+                } while (c != n);
+                result.cycles.add(cycle);
+            }
+        }
+        for (int n = 0; n < nodeCount; n++) {
+            final int p = parent[n];
+            if (p != NONE && ! isDeclared[p]) {
+                result.danglingParents.add(className(p) + " (parent of " + className(n) + ")");
+            }
+        }
+        analysis = result;
+        return result;
+    }
+
+    /**
+     * Returns a config bean's path, building it the first time and after
+     * each change above the config bean.
+     *
+     * @param node the config bean's node
+     * @return the config bean's path
+     */
+    synchronized String fullPath(final int node) {
+        String result = path[node];
+        if (result == null) {
+            result = buildPath(node);
+            path[node] = result;
+            pathCount++;
+        }
+        return result;
+    }
+
+    /*
+     * Builds a config bean's path by walking up its parents, collecting each
+     * level's segment and separator, then joining them once, top first.  A
+     * level's segment is its subpath in its parent, if the parent declares
+     * it as a child, or else its converted simple class name; a "*" subpath
+     * below another segment is dropped.  A walk reaching a parent cycle
+     * stops after the first node on the cycle, which is the first node the
+     * walk would visit twice.
+     */
+    private String buildPath(final int node) {
+        final int generation = nextMarkGeneration();
+        int firstInCycle = NONE;
+        for (int n = node; n != NONE; n = parent[n]) {
+            if (mark[n] == generation) {
+                firstInCycle = n;
+                break;
+            }
+            mark[n] = generation;
+        }
+        final List<String> parts = new ArrayList<>();
+        boolean isEmpty = true;
+        boolean isSlashFirst = false;
+        for (int n = node; n != NONE; n = (n == firstInCycle ? NONE : parent[n])) {
+            if ( ! isEmpty && ! isSlashFirst) {
+                parts.add("/");
+                isSlashFirst = true;
+            }
+            final int p = parent[n];
+            final String subpathInParent = (p != NONE ? subpath(p, n) : null);
+            final String segment;
+            if (subpathInParent != null) {
+                if (subpathInParent.equals("*") && ! isEmpty) {
+                    continue;
+                }
+                segment = subpathInParent;
+            } else {
+                segment = Util.convertName(Util.lastPart(className(n)));
+            }
+            if ( ! segment.isEmpty()) {
+                parts.add(segment);
+                isEmpty = false;
+                isSlashFirst = (segment.charAt(0) == '/');
+            }
+        }
+        final StringBuilder result = new StringBuilder();
+        for (int k = parts.size() - 1; k >= 0; k--) {
+            result.append(parts.get(k));
+        }
+        return result.toString();
+    }
+
+    /*
+     * Drops the paths of a node and of every node below it, each once even
+     * if parents loop.
+     */
+    private void dropPaths(final int node) {
+        if (pathCount == 0) {
+            return;
+        }
+        final int generation = nextMarkGeneration();
+        final int[] pending = new int[nodeCount];
+        int pendingCount = 0;
+        pending[pendingCount++] = node;
+        mark[node] = generation;
+        while (pendingCount > 0) {
+            final int n = pending[--pendingCount];
+            if (path[n] != null) {
+                path[n] = null;
+                pathCount--;
+            }
+            for (int d = firstDependent[n]; d != NONE; d = nextDependent[d]) {
+                if (mark[d] != generation) {
+                    mark[d] = generation;
+                    pending[pendingCount++] = d;
+                }
+            }
+        }
+    }
+
+    private void linkDependent(final int node) {
+        final int p = parent[node];
+        if (p == NONE) {
+            return;
+        }
+        nextDependent[node] = firstDependent[p];
+        previousDependent[node] = NONE;
+        if (firstDependent[p] != NONE) {
+            previousDependent[firstDependent[p]] = node;
+        }
+        firstDependent[p] = node;
+    }
+
+    private void unlinkDependent(final int node) {
+        final int p = parent[node];
+        if (p == NONE) {
+            return;
+        }
+        if (previousDependent[node] == NONE) {
+            firstDependent[p] = nextDependent[node];
+        } else {
+            nextDependent[previousDependent[node]] = nextDependent[node];
+        }
+        if (nextDependent[node] != NONE) {
+            previousDependent[nextDependent[node]] = previousDependent[node];
+        }
+        nextDependent[node] = NONE;
+        previousDependent[node] = NONE;
+    }
+
+    private int nextMarkGeneration() {
+        if (++markGeneration == 0) {
+            Arrays.fill(mark, 0);
+            markGeneration = 1;
+        }
+        return markGeneration;
+    }
+
+    /**
+     * Checks the graph and reports the parent cycles and dangling parents
+     * which no earlier call reported.  Each goal execution asks once it has
+     * added its config beans, so a problem is reported by the module whose
+     * locator files introduced it.
+     *
+     * @return the new problems; null if there are none
+     */
+    synchronized String newProblemsReport() {
+        final StringBuilder sb = new StringBuilder();
+        int count = 0;
+        for (String problem : analyze().problems()) {
+            if (reportedProblems.add(problem)) {
+                sb.append("\n  ").append(problem);
+                count++;
+            }
+        }
+        return (count == 0 ? null : "Config bean graph has " + count + " new problem(s)" + sb);
+    }
+
+    private int edge(final int node, final int child) {
+        for (int e = firstEdge[node]; e != NONE; e = nextEdge[e]) {
+            if (edgeChild[e] == child) {
+                return e;
+            }
+        }
+        return NONE;
+    }
+}
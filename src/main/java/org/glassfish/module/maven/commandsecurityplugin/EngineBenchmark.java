@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs every class the analysis reads through each of several analysis
+ * engines, timing them and checking that they all report the same thing.
+ * <p>
+ * The first engine listed is the reference the others are compared to and
+ * measured against.
+ */
+class EngineBenchmark {
+
+    private static final int MAX_REPORTED_MISMATCHES = 20;
+
+    private final List<AnalysisEngine> engines;
+    private final AtomicLong[] nanos;
+    private final AtomicLong classes = new AtomicLong();
+    private final Set<String> mismatches = new ConcurrentSkipListSet<>();
+
+    EngineBenchmark(final List<AnalysisEngine> engines) {
+        this.engines = engines;
+        nanos = new AtomicLong[engines.size()];
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] = new AtomicLong();
+        }
+    }
+
+    /**
+     * Parses the class with each engine in turn.  Each engine starts from
+     * the raw bytes, so reading the header counts toward its time.
+     *
+     * @param header header of the class to parse; supplies the class bytes
+     * @param fieldAnnotationDescs descriptors of the field annotations of interest
+     */
+    void run(final ClassFileHeader header, final Collection<String> fieldAnnotationDescs) {
+        String reference = null;
+        for (int i = 0; i < engines.size(); i++) {
+            final RecordingClassVisitor recorder = new RecordingClassVisitor(fieldAnnotationDescs);
+            final long start = System.nanoTime();
+            engines.get(i).accept(new ClassFileHeader(header.bytes(), header.offset(), header.length()),
+                    recorder, fieldAnnotationDescs);
+            nanos[i].addAndGet(System.nanoTime() - start);
+            if (i == 0) {
+                reference = recorder.record();
+            } else if ( ! reference.equals(recorder.record())) {
+                mismatches.add(header.className() + " (" + engines.get(i) + ")");
+            }
+        }
+        classes.incrementAndGet();
+    }
+
+    boolean hasMismatches() {
+        return ! mismatches.isEmpty();
+    }
+
+    /**
+     * @return the classes (and engines) whose results differed from the reference engine's
+     */
+    String mismatchReport() {
+        final StringBuilder sb = new StringBuilder("Analysis engines disagree with " + engines.get(0)
+                + " on " + mismatches.size() + " class(es):");
+        int count = 0;
+        for (String mismatch : mismatches) {
+            if (count++ == MAX_REPORTED_MISMATCHES) {
+                sb.append(" ...");
+                break;
+            }
+            sb.append(' ').append(mismatch);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("Analysis engine benchmark over ")
+                .append(classes.get()).append(" classes:");
+        final long referenceNanos = Math.max(1, nanos[0].get());
+        for (int i = 0; i < engines.size(); i++) {
+            sb.append(i == 0 ? " " : ", ").append(engines.get(i)).append(' ')
+                    .append(TimeUnit.NANOSECONDS.toMillis(nanos[i].get())).append(" ms");
+            if (i > 0) {
+                sb.append(String.format(" (%.2fx)", (double) nanos[i].get() / referenceNanos));
+            }
+        }
+        sb.append(hasMismatches() ? "; results differ" : "; results identical");
+        return sb.toString();
+    }
+}
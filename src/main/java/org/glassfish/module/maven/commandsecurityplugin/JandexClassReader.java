@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.AnnotationValue;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.FieldInfo;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Type;
+
+/**
+ * Reports a class recorded in a Jandex index to a class visitor the way the
+ * analysis engines report a class file: header, class-level annotations
+ * (visible ones first), then the fields which carry one of the field
+ * annotations of interest.  Annotation values are reported as ASM's
+ * ClassReader reports them.
+ * <p>
+ * The index does not keep the class file version; the visitor is told 0.
+ */
+class JandexClassReader {
+
+    private JandexClassReader() {
+    }
+
+    static void accept(final ClassInfo classInfo, final ClassVisitor visitor,
+            final Collection<String> fieldAnnotationDescs) {
+        final List<DotName> interfaceNames = classInfo.interfaceNames();
+        final String[] interfaces = new String[interfaceNames.size()];
+        for (int i = 0; i < interfaces.length; i++) {
+            interfaces[i] = internalName(interfaceNames.get(i));
+        }
+        visitor.visit(0, classInfo.flags() & 0xFFFF, internalName(classInfo.name()), null,
+                superName(classInfo), interfaces);
+
+        for (AnnotationInstance annotation : visibleFirst(classInfo.declaredAnnotations())) {
+            readAnnotation(annotation, visitor.visitAnnotation(desc(annotation.name()), annotation.runtimeVisible()));
+        }
+
+        for (FieldInfo field : classInfo.fieldsInDeclarationOrder()) {
+            final List<AnnotationInstance> annotations = field.declaredAnnotations();
+            if ( ! isAnnotatedWithAny(annotations, fieldAnnotationDescs)) {
+                continue;
+            }
+            final FieldVisitor fieldVisitor = visitor.visitField(field.flags() & 0xFFFF, field.name(),
+                    field.descriptor(), null, null);
+            if (fieldVisitor == null) {
+                continue;
+            }
+            for (AnnotationInstance annotation : visibleFirst(annotations)) {
+                readAnnotation(annotation, fieldVisitor.visitAnnotation(desc(annotation.name()), annotation.runtimeVisible()));
+            }
+            fieldVisitor.visitEnd();
+        }
+        visitor.visitEnd();
+    }
+
+    /**
+     * @param classInfo the indexed class
+     * @return internal name of the superclass; null for java.lang.Object
+     */
+    static String superName(final ClassInfo classInfo) {
+        return (classInfo.superName() == null ? null : internalName(classInfo.superName()));
+    }
+
+    static String internalName(final DotName name) {
+        return name.toString().replace('.', '/');
+    }
+
+    private static String desc(final DotName name) {
+        return 'L' + internalName(name) + ';';
+    }
+
+    private static List<AnnotationInstance> visibleFirst(final Collection<AnnotationInstance> annotations) {
+        final List<AnnotationInstance> result = new ArrayList<>(annotations.size());
+        for (AnnotationInstance annotation : annotations) {
+            if (annotation.runtimeVisible()) {
+                result.add(annotation);
+            }
+        }
+        for (AnnotationInstance annotation : annotations) {
+            if ( ! annotation.runtimeVisible()) {
+                result.add(annotation);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isAnnotatedWithAny(final List<AnnotationInstance> annotations,
+            final Collection<String> descs) {
+        for (AnnotationInstance annotation : annotations) {
+            if (descs.contains(desc(annotation.name()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void readAnnotation(final AnnotationInstance annotation, final AnnotationVisitor visitor) {
+        if (visitor == null) {
+            return;
+        }
+        for (AnnotationValue value : annotation.values()) {
+            readValue(value.name(), value, visitor);
+        }
+        visitor.visitEnd();
+    }
+
+    private static void readValue(final String name, final AnnotationValue value, final AnnotationVisitor visitor) {
+        switch (value.kind()) {
+            case BYTE:
+                visitor.visit(name, value.asByte());
+                break;
+            case CHARACTER:
+                visitor.visit(name, value.asChar());
+                break;
+            case SHORT:
+                visitor.visit(name, value.asShort());
+                break;
+            case INTEGER:
+                visitor.visit(name, value.asInt());
+                break;
+            case BOOLEAN:
+                visitor.visit(name, value.asBoolean());
+                break;
+            case FLOAT:
+                visitor.visit(name, value.asFloat());
+                break;
+            case LONG:
+                visitor.visit(name, value.asLong());
+                break;
+            case DOUBLE:
+                visitor.visit(name, value.asDouble());
+                break;
+            case STRING:
+                visitor.visit(name, value.asString());
+                break;
+            case CLASS:
+                visitor.visit(name, Type.getType(value.asClass().descriptor()));
+                break;
+            case ENUM:
+                visitor.visitEnum(name, desc(value.asEnumType()), value.asEnum());
+                break;
+            case NESTED:
+                readAnnotation(value.asNested(), visitor.visitAnnotation(name, desc(value.asNested().name())));
+                break;
+            case ARRAY:
+                readArray(name, value, visitor);
+                break;
+            default:
+                throw new IllegalArgumentException("Unrecognized annotation value kind " + value.kind());
+        }
+    }
+
+    /*
+     * Like ASM, reports a non-empty array of a primitive type as a single
+     * primitive array value and any other array element by element.
+     */
+    private static void readArray(final String name, final AnnotationValue value, final AnnotationVisitor visitor) {
+        final List<AnnotationValue> elements = value.asArrayList();
+        if ( ! elements.isEmpty()) {
+            switch (value.componentKind()) {
+                case BYTE:
+                    visitor.visit(name, value.asByteArray());
+                    return;
+                case CHARACTER:
+                    visitor.visit(name, value.asCharArray());
+                    return;
+                case SHORT:
+                    visitor.visit(name, value.asShortArray());
+                    return;
+                case INTEGER:
+                    visitor.visit(name, value.asIntArray());
+                    return;
+                case BOOLEAN:
+                    visitor.visit(name, value.asBooleanArray());
+                    return;
+                case FLOAT:
+                    visitor.visit(name, value.asFloatArray());
+                    return;
+                case LONG:
+                    visitor.visit(name, value.asLongArray());
+                    return;
+                case DOUBLE:
+                    visitor.visit(name, value.asDoubleArray());
+                    return;
+                default:
+                    break;
+            }
+        }
+        final AnnotationVisitor arrayVisitor = visitor.visitArray(name);
+        if (arrayVisitor == null) {
+            return;
+        }
+        for (AnnotationValue element : elements) {
+            readValue(null, element, arrayVisitor);
+        }
+        arrayVisitor.visitEnd();
+    }
+}
@@ -0,0 +1,449 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.glassfish.hk2.api.Descriptor;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Single-pass parser for hk2-locator files which yields just what the plug-in
+ * uses from each descriptor.
+ * <p>
+ * The parser follows hk2's DescriptorImpl.readObject and the set and metadata
+ * readers of ReflectionHelper character for character, including which lines
+ * are ignored and which malformed input is an error, but it scans the decoded
+ * file in place: it allocates strings only for the values it keeps and builds
+ * no descriptor, metadata map or per-line matcher.
+ */
+class LocatorParser {
+
+    private static final String CONTRACT_KEY = "contract=";
+    private static final String NAME_KEY = "name=";
+    private static final String METADATA_KEY = "metadata=";
+
+    private static final String TARGET_METADATA = "target";
+    private static final String METHOD_LIST_ACTUAL_METADATA = "MethodListActual";
+    private static final String METHOD_NAME_METADATA = "MethodName";
+    private static final String PARENT_CONFIGURED_METADATA = "ParentConfigured";
+
+    private static final char NOT_IN_CONTRACTS_DIRECTIVE_CHAR = '-';
+
+    /**
+     * What the plug-in needs from one descriptor in a locator file.  Metadata
+     * values are the first value recorded for the key; null if the key is
+     * absent.
+     */
+    static class Entry {
+        final String implementation;
+        final List<String> contracts;
+        final String name;
+        final String target;
+        final String methodListActual;
+        final String methodName;
+        final String parentConfigured;
+
+        /**
+         * Child elements declared by config bean metadata ({@code <name>=type}),
+         * in the order the metadata map would iterate them.
+         */
+        final List<String> childNames;
+        final List<String> childTypes;
+
+        private Entry(final String implementation, final List<String> contracts, final String name,
+                final Metadata metadata) {
+            this.implementation = implementation;
+            this.contracts = contracts;
+            this.name = name;
+            this.target = metadata.target;
+            this.methodListActual = metadata.methodListActual;
+            this.methodName = metadata.methodName;
+            this.parentConfigured = metadata.parentConfigured;
+            this.childNames = metadata.childNames;
+            this.childTypes = metadata.childTypes;
+        }
+
+        /**
+         * Extracts the same information from a descriptor hk2 has read.
+         *
+         * @param d the descriptor
+         * @return the descriptor's entry
+         */
+        static Entry of(final Descriptor d) {
+            final Metadata metadata = new Metadata();
+            for (Map.Entry<String,List<String>> e : d.getMetadata().entrySet()) {
+                final String key = e.getKey();
+                final String first = (e.getValue().isEmpty() ? null : e.getValue().get(0));
+                if (isChildKey(key)) {
+                    metadata.addChild(key.substring(1, key.length() - 1), first);
+                } else if (key.equals(TARGET_METADATA)) {
+                    metadata.target = first;
+                } else if (key.equals(METHOD_LIST_ACTUAL_METADATA)) {
+                    metadata.methodListActual = first;
+                } else if (key.equals(METHOD_NAME_METADATA)) {
+                    metadata.methodName = first;
+                } else if (key.equals(PARENT_CONFIGURED_METADATA)) {
+                    metadata.parentConfigured = first;
+                }
+            }
+            return new Entry(d.getImplementation(), new ArrayList<>(d.getAdvertisedContracts()), d.getName(),
+                    metadata);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if ( ! (obj instanceof Entry)) {
+                return false;
+            }
+            final Entry other = (Entry) obj;
+            return Objects.equals(implementation, other.implementation)
+                    && contracts.equals(other.contracts)
+                    && Objects.equals(name, other.name)
+                    && Objects.equals(target, other.target)
+                    && Objects.equals(methodListActual, other.methodListActual)
+                    && Objects.equals(methodName, other.methodName)
+                    && Objects.equals(parentConfigured, other.parentConfigured)
+                    && childNames.equals(other.childNames)
+                    && childTypes.equals(other.childTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(implementation, contracts, name, target);
+        }
+
+        @Override
+        public String toString() {
+            return "[" + implementation + "] contracts=" + contracts + " name=" + name
+                    + (target == null ? "" : " target=" + target)
+                    + (methodName == null ? "" : " MethodListActual=" + methodListActual
+                            + " MethodName=" + methodName + " ParentConfigured=" + parentConfigured)
+                    + (childNames.isEmpty() ? "" : " children=" + childNames + childTypes);
+        }
+    }
+
+    /*
+     * The kept metadata of one metadata= line.  A later key replaces the value
+     * of an earlier one with the same name but, like a LinkedHashMap, keeps
+     * its position.
+     */
+    private static class Metadata {
+        private boolean isEmpty = true;
+        private String target;
+        private String methodListActual;
+        private String methodName;
+        private String parentConfigured;
+        private List<String> childNames = Collections.emptyList();
+        private List<String> childTypes = Collections.emptyList();
+
+        private void addChild(final String childName, final String childType) {
+            if (childNames.isEmpty()) {
+                childNames = new ArrayList<>(4);
+                childTypes = new ArrayList<>(4);
+            }
+            final int existing = childNames.indexOf(childName);
+            if (existing >= 0) {
+                childTypes.set(existing, childType);
+            } else {
+                childNames.add(childName);
+                childTypes.add(childType);
+            }
+        }
+    }
+
+    private final char[] chars;
+    private final int length;
+    private final StringBuilder element = new StringBuilder();
+
+    private LocatorParser(final char[] chars, final int length) {
+        this.chars = chars;
+        this.length = length;
+    }
+
+    /**
+     * Parses a locator file.
+     *
+     * @param locator the file's bytes, UTF-8 encoded
+     * @return the file's descriptors, in order
+     * @throws IOException if the file is malformed where hk2 would reject it
+     */
+    static List<Entry> parse(final byte[] locator) throws IOException {
+        final CharBuffer decoded = UTF_8.decode(ByteBuffer.wrap(locator));
+        return new LocatorParser(decoded.array(), decoded.limit()).parse();
+    }
+
+    private List<Entry> parse() throws IOException {
+        final List<Entry> result = new ArrayList<>();
+        boolean isInSection = false;
+        String implementation = null;
+        List<String> contracts = null;
+        String name = null;
+        Metadata metadata = null;
+
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && chars[lineEnd] != '\n' && chars[lineEnd] != '\r') {
+                lineEnd++;
+            }
+            final int nextLine = (lineEnd + 1 < length && chars[lineEnd] == '\r' && chars[lineEnd + 1] == '\n'
+                    ? lineEnd + 2 : lineEnd + 1);
+
+            /*
+             * Trim as String.trim does.
+             */
+            int start = lineStart;
+            int end = lineEnd;
+            while (start < end && chars[start] <= ' ') {
+                start++;
+            }
+            while (end > start && chars[end - 1] <= ' ') {
+                end--;
+            }
+
+            if ( ! isInSection) {
+                if (start < end && chars[start] == '[') {
+                    isInSection = true;
+                    final int close = indexOf(']', start + 1, end);
+                    if (close < 0) {
+                        throw new IOException("Start of implementation ends without ] character: " + line(start, end));
+                    }
+                    implementation = (close > start + 1 ? new String(chars, start + 1, close - start - 1) : null);
+                    contracts = new ArrayList<>(4);
+                    if (implementation != null && indexOf(NOT_IN_CONTRACTS_DIRECTIVE_CHAR, close + 1, end) < 0) {
+                        contracts.add(implementation);
+                    }
+                    name = null;
+                    metadata = new Metadata();
+                }
+            } else if (start == end) {
+                result.add(new Entry(implementation, contracts, name, metadata));
+                isInSection = false;
+            } else {
+                final int equals = indexOf('=', start, end);
+                if (equals >= start + 1) {
+                    final int keyLength = equals + 1 - start;
+                    if (isKey(CONTRACT_KEY, start, keyLength, true)) {
+                        readContracts(equals + 1, end, contracts, start);
+                    } else if (isKey(NAME_KEY, start, keyLength, false)) {
+                        name = new String(chars, equals + 1, end - equals - 1);
+                    } else if (isKey(METADATA_KEY, start, keyLength, false)) {
+                        final Metadata lineMetadata = readMetadata(equals + 1, end, start);
+                        if ( ! lineMetadata.isEmpty) {
+                            metadata = lineMetadata;
+                        }
+                    }
+                    // Other keys do not matter here.
+                }
+            }
+            lineStart = nextLine;
+        }
+        if (isInSection) {
+            result.add(new Entry(implementation, contracts, name, metadata));
+        }
+        return result;
+    }
+
+    private boolean isKey(final String key, final int start, final int keyLength, final boolean isIgnoringCase) {
+        if (keyLength != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < keyLength; i++) {
+            final char c = chars[start + i];
+            final char k = key.charAt(i);
+            if (c != k && ! (isIgnoringCase && Character.toLowerCase(c) == Character.toLowerCase(k))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void readContracts(final int from, final int to, final List<String> contracts, final int lineStart)
+            throws IOException {
+        int i = openSet(from, to, lineStart);
+        while (true) {
+            final int next = readElement(i, to, true, lineStart);
+            final String contract = element.toString();
+            if ( ! contracts.contains(contract)) {
+                contracts.add(contract);
+            }
+            if (chars[next] == '}') {
+                return;
+            }
+            i = next + 1;
+        }
+    }
+
+    /*
+     * Reads key={value,...} pairs, separated by commas, as
+     * ReflectionHelper.readMetadataMap does.
+     */
+    private Metadata readMetadata(final int from, final int to, final int lineStart) throws IOException {
+        final Metadata result = new Metadata();
+        int dot = from;
+        while (dot < to) {
+            final int equals = indexOf('=', dot, to);
+            if (equals < 0) {
+                throw new IOException("Unknown key-string list format, no equals: " + line(lineStart, to));
+            }
+            final int keyStart = dot;
+            final int keyLength = equals - keyStart;
+            dot = equals + 1;
+            if (dot >= to) {
+                throw new IOException("Found a key with no value, " + new String(chars, keyStart, keyLength)
+                        + " in line " + line(lineStart, to));
+            }
+            final Kind kind = kind(keyStart, keyLength);
+
+            /*
+             * Only the set's first element is kept, but the whole set is read
+             * so malformed input is found as hk2 would find it.
+             */
+            int i = openSet(dot, to, lineStart);
+            String first = null;
+            while (true) {
+                final int next = readElement(i, to, (first == null && kind != Kind.IGNORED), lineStart);
+                if (first == null) {
+                    first = (kind == Kind.IGNORED ? "" : element.toString());
+                }
+                if (chars[next] == '}') {
+                    dot = next + 1;
+                    break;
+                }
+                i = next + 1;
+            }
+            result.isEmpty = false;
+            switch (kind) {
+                case CHILD:
+                    result.addChild(new String(chars, keyStart + 1, keyLength - 2), first);
+                    break;
+                case TARGET:
+                    result.target = first;
+                    break;
+                case METHOD_LIST_ACTUAL:
+                    result.methodListActual = first;
+                    break;
+                case METHOD_NAME:
+                    result.methodName = first;
+                    break;
+                case PARENT_CONFIGURED:
+                    result.parentConfigured = first;
+                    break;
+                default:
+                    break;
+            }
+            if (dot < to && chars[dot] == ',') {
+                dot++;
+            }
+        }
+        return result;
+    }
+
+    private enum Kind {
+        TARGET, METHOD_LIST_ACTUAL, METHOD_NAME, PARENT_CONFIGURED, CHILD, IGNORED
+    }
+
+    private Kind kind(final int keyStart, final int keyLength) {
+        if (keyLength > 2 && chars[keyStart] == '<' && chars[keyStart + keyLength - 1] == '>'
+                && indexOf('>', keyStart + 1, keyStart + keyLength - 1) < 0) {
+            return Kind.CHILD;
+        } else if (isKey(TARGET_METADATA, keyStart, keyLength, false)) {
+            return Kind.TARGET;
+        } else if (isKey(METHOD_LIST_ACTUAL_METADATA, keyStart, keyLength, false)) {
+            return Kind.METHOD_LIST_ACTUAL;
+        } else if (isKey(METHOD_NAME_METADATA, keyStart, keyLength, false)) {
+            return Kind.METHOD_NAME;
+        } else if (isKey(PARENT_CONFIGURED_METADATA, keyStart, keyLength, false)) {
+            return Kind.PARENT_CONFIGURED;
+        }
+        return Kind.IGNORED;
+    }
+
+    /*
+     * A metadata key naming a child element: <name>, with no > inside.
+     */
+    private static boolean isChildKey(final String key) {
+        return key.length() > 2 && key.charAt(0) == '<' && key.charAt(key.length() - 1) == '>'
+                && key.indexOf('>', 1) == key.length() - 1;
+    }
+
+    /*
+     * Like ReflectionHelper, skips anything before the opening brace.
+     * Returns the position just past it.
+     */
+    private int openSet(final int from, final int to, final int lineStart) throws IOException {
+        final int open = indexOf('{', from, to);
+        if (open < 0) {
+            throw new IOException("Unknown set format, no initial { character : " + line(lineStart, to));
+        }
+        return open + 1;
+    }
+
+    /*
+     * Reads one set element, unescaping it into the element buffer if it is
+     * kept, and returns the position of the comma or closing brace ending it.
+     */
+    private int readElement(final int from, final int to, final boolean isKept, final int lineStart)
+            throws IOException {
+        element.setLength(0);
+        int i = from;
+        while (i < to) {
+            char c = chars[i];
+            if (c == '}' || c == ',') {
+                return i;
+            }
+            if (c == '\\') {
+                if (i + 1 >= to) {
+                    break;
+                }
+                c = chars[++i];
+                if (c == 'n') {
+                    c = '\n';
+                } else if (c == 'r') {
+                    c = '\r';
+                }
+            }
+            if (isKept) {
+                element.append(c);
+            }
+            i++;
+        }
+        throw new IOException("Unknown set format, no ending } character : " + line(lineStart, to));
+    }
+
+    private int indexOf(final char c, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            if (chars[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String line(final int start, final int end) {
+        return new String(chars, start, end - start);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.glassfish.hk2.utilities.DescriptorImpl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Checks the plug-in's parse of each hk2-locator file against hk2's own
+ * parser, over the whole build.
+ * <p>
+ * hk2's parse runs in the background on the bytes the plug-in already read,
+ * so verification adds no locator I/O and does not hold up the analysis.
+ * Differences are collected by file and reported, without stopping at the
+ * first one, by the goal execution which first sees them.
+ */
+class LocatorVerification {
+
+    private final Queue<CompletableFuture<Void>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger files = new AtomicInteger();
+    private final AtomicInteger descriptors = new AtomicInteger();
+    private final Map<String,String> mismatches = new ConcurrentSkipListMap<>();
+    private final Set<String> reported = new HashSet<>();
+
+    /**
+     * Starts comparing the plug-in's parse of a locator file with hk2's.
+     *
+     * @param entries the descriptors the plug-in parsed from the file; not changed afterwards
+     * @param locator the file's bytes
+     * @param source where the file came from, for the report
+     */
+    void verify(final List<LocatorParser.Entry> entries, final byte[] locator, final String source) {
+        pending.add(CompletableFuture.runAsync(() -> compare(entries, locator, source)));
+    }
+
+    private void compare(final List<LocatorParser.Entry> entries, final byte[] locator, final String source) {
+        final List<LocatorParser.Entry> fromAPI = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(locator), UTF_8))) {
+            DescriptorImpl di;
+            while ((di = new DescriptorImpl()).readObject(reader)) {
+                fromAPI.add(LocatorParser.Entry.of(di));
+            }
+        } catch (IOException | RuntimeException ex) {
+            mismatches.put(source, "  hk2 could not read the file: " + ex);
+            return;
+        } finally {
+            files.incrementAndGet();
+        }
+        descriptors.addAndGet(fromAPI.size());
+        if (fromAPI.equals(entries)) {
+            return;
+        }
+        final List<LocatorParser.Entry> inParseNotInAPI = new ArrayList<>(entries);
+        inParseNotInAPI.removeAll(fromAPI);
+        final List<LocatorParser.Entry> inAPINotInParse = new ArrayList<>(fromAPI);
+        inAPINotInParse.removeAll(entries);
+        final StringBuilder sb = new StringBuilder();
+        if (inAPINotInParse.isEmpty() && inParseNotInAPI.isEmpty()) {
+            sb.append("  same descriptors, in a different order");
+        }
+        for (LocatorParser.Entry entry : inAPINotInParse) {
+            sb.append(sb.length() == 0 ? "" : "\n").append("  extra in API:   ").append(entry);
+        }
+        for (LocatorParser.Entry entry : inParseNotInAPI) {
+            sb.append(sb.length() == 0 ? "" : "\n").append("  extra in parse: ").append(entry);
+        }
+        mismatches.put(source, sb.toString());
+    }
+
+    /**
+     * Waits for the comparisons started so far to finish.
+     */
+    void await() {
+        CompletableFuture<Void> future;
+        while ((future = pending.poll()) != null) {
+            future.join();
+        }
+    }
+
+    /**
+     * Reports the locator files whose parse differed from hk2's which no
+     * earlier call reported.  Each goal execution asks once it is done, so
+     * every mismatch is reported by whichever execution first sees it,
+     * whatever order the reactor's projects finish in.
+     *
+     * @return each newly found file with the differing descriptors; null if there is none
+     */
+    synchronized String newMismatchReport() {
+        await();
+        final Map<String,String> unreported = new TreeMap<>(mismatches);
+        unreported.keySet().removeAll(reported);
+        if (unreported.isEmpty()) {
+            return null;
+        }
+        reported.addAll(unreported.keySet());
+        final StringBuilder sb = new StringBuilder("Inhabitants mismatch in " + unreported.size()
+                + " locator file(s):");
+        for (Map.Entry<String,String> e : unreported.entrySet()) {
+            sb.append("\n").append(e.getKey()).append("\n").append(e.getValue());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        await();
+        return "Locator parse verified against hk2 for " + files.get() + " file(s), " + descriptors.get()
+                + " descriptor(s): " + (mismatches.isEmpty() ? "all match" : mismatches.size() + " differ");
+    }
+}
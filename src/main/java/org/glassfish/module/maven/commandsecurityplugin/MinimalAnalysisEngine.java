@@ -0,0 +1,349 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.util.Collection;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Type;
+
+/**
+ * Analysis engine which reads only the parts of the class file the
+ * authorization analysis uses: the header, the class-level annotations and
+ * the annotations of fields which carry one of the field annotations of
+ * interest.
+ * <p>
+ * Methods are skipped by their lengths without being looked at, as are the
+ * attributes of fields without interesting annotations, so no visitor is
+ * created for them.  Annotation values are reported exactly as ASM's
+ * ClassReader reports them, so the visitors see no difference.
+ */
+class MinimalAnalysisEngine implements AnalysisEngine {
+
+    static final MinimalAnalysisEngine INSTANCE = new MinimalAnalysisEngine();
+
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+    private static final String RUNTIME_INVISIBLE_ANNOTATIONS = "RuntimeInvisibleAnnotations";
+
+    @Override
+    public void accept(final ClassFileHeader header, final ClassVisitor visitor,
+            final Collection<String> fieldAnnotationDescs) {
+        visitor.visit(header.version(), header.access(), header.className(), null,
+                header.superName(), header.interfaces());
+
+        /*
+         * ASM reports class-level annotations before fields, but they are stored
+         * after the methods, so note where the fields start and come back to them.
+         */
+        final int fieldsStart = header.headerEnd();
+        int p = skipMembers(header, fieldsStart);
+        p = skipMembers(header, p);
+
+        int visibleAnnotations = 0;
+        int invisibleAnnotations = 0;
+        final int attributeCount = header.readUnsignedShort(p);
+        p += 2;
+        for (int i = 0; i < attributeCount; i++) {
+            final String attributeName = header.utf8(header.readUnsignedShort(p));
+            if (attributeName.equals(RUNTIME_VISIBLE_ANNOTATIONS)) {
+                visibleAnnotations = p + 6;
+            } else if (attributeName.equals(RUNTIME_INVISIBLE_ANNOTATIONS)) {
+                invisibleAnnotations = p + 6;
+            }
+            p += 6 + header.readInt(p + 2);
+        }
+        if (visibleAnnotations != 0) {
+            readClassAnnotations(header, visibleAnnotations, visitor, true);
+        }
+        if (invisibleAnnotations != 0) {
+            readClassAnnotations(header, invisibleAnnotations, visitor, false);
+        }
+
+        readFields(header, fieldsStart, visitor, fieldAnnotationDescs);
+        visitor.visitEnd();
+    }
+
+    private static int skipMembers(final ClassFileHeader header, int p) {
+        final int memberCount = header.readUnsignedShort(p);
+        p += 2;
+        for (int i = 0; i < memberCount; i++) {
+            final int attributeCount = header.readUnsignedShort(p + 6);
+            p += 8;
+            for (int j = 0; j < attributeCount; j++) {
+                p += 6 + header.readInt(p + 2);
+            }
+        }
+        return p;
+    }
+
+    private static void readClassAnnotations(final ClassFileHeader header, int p,
+            final ClassVisitor visitor, final boolean visible) {
+        final int annotationCount = header.readUnsignedShort(p);
+        p += 2;
+        for (int i = 0; i < annotationCount; i++) {
+            final String desc = header.utf8(header.readUnsignedShort(p));
+            p = readElementValuePairs(header, p + 2, visitor.visitAnnotation(desc, visible));
+        }
+    }
+
+    private static void readFields(final ClassFileHeader header, int p, final ClassVisitor visitor,
+            final Collection<String> fieldAnnotationDescs) {
+        final int fieldCount = header.readUnsignedShort(p);
+        p += 2;
+        for (int i = 0; i < fieldCount; i++) {
+            final int fieldStart = p;
+            int visibleAnnotations = 0;
+            int invisibleAnnotations = 0;
+            final int attributeCount = header.readUnsignedShort(p + 6);
+            p += 8;
+            for (int j = 0; j < attributeCount; j++) {
+                final String attributeName = header.utf8(header.readUnsignedShort(p));
+                if (attributeName.equals(RUNTIME_VISIBLE_ANNOTATIONS)) {
+                    visibleAnnotations = p + 6;
+                } else if (attributeName.equals(RUNTIME_INVISIBLE_ANNOTATIONS)) {
+                    invisibleAnnotations = p + 6;
+                }
+                p += 6 + header.readInt(p + 2);
+            }
+            if ( ! isAnnotatedWithAny(header, visibleAnnotations, fieldAnnotationDescs)
+                    && ! isAnnotatedWithAny(header, invisibleAnnotations, fieldAnnotationDescs)) {
+                continue;
+            }
+            final FieldVisitor fieldVisitor = visitor.visitField(
+                    header.readUnsignedShort(fieldStart),
+                    header.utf8(header.readUnsignedShort(fieldStart + 2)),
+                    header.utf8(header.readUnsignedShort(fieldStart + 4)),
+                    null, null);
+            if (fieldVisitor == null) {
+                continue;
+            }
+            if (visibleAnnotations != 0) {
+                readFieldAnnotations(header, visibleAnnotations, fieldVisitor, true);
+            }
+            if (invisibleAnnotations != 0) {
+                readFieldAnnotations(header, invisibleAnnotations, fieldVisitor, false);
+            }
+            fieldVisitor.visitEnd();
+        }
+    }
+
+    private static boolean isAnnotatedWithAny(final ClassFileHeader header, int p,
+            final Collection<String> descs) {
+        if (p == 0) {
+            return false;
+        }
+        final int annotationCount = header.readUnsignedShort(p);
+        p += 2;
+        for (int i = 0; i < annotationCount; i++) {
+            if (descs.contains(header.utf8(header.readUnsignedShort(p)))) {
+                return true;
+            }
+            p = readElementValuePairs(header, p + 2, null);
+        }
+        return false;
+    }
+
+    private static void readFieldAnnotations(final ClassFileHeader header, int p,
+            final FieldVisitor visitor, final boolean visible) {
+        final int annotationCount = header.readUnsignedShort(p);
+        p += 2;
+        for (int i = 0; i < annotationCount; i++) {
+            final String desc = header.utf8(header.readUnsignedShort(p));
+            p = readElementValuePairs(header, p + 2, visitor.visitAnnotation(desc, visible));
+        }
+    }
+
+    /*
+     * Reads num_element_value_pairs and the pairs which follow, reporting them
+     * to the visitor (if any).  Returns the offset just past the pairs.
+     */
+    private static int readElementValuePairs(final ClassFileHeader header, int p,
+            final AnnotationVisitor visitor) {
+        final int pairCount = header.readUnsignedShort(p);
+        p += 2;
+        for (int i = 0; i < pairCount; i++) {
+            final String elementName = header.utf8(header.readUnsignedShort(p));
+            p = readElementValue(header, p + 2, elementName, visitor);
+        }
+        if (visitor != null) {
+            visitor.visitEnd();
+        }
+        return p;
+    }
+
+    /*
+     * Reads the array's values, each reported with a null name.
+     */
+    private static int readArrayValues(final ClassFileHeader header, int p, final int valueCount,
+            final AnnotationVisitor visitor) {
+        for (int i = 0; i < valueCount; i++) {
+            p = readElementValue(header, p, null, visitor);
+        }
+        if (visitor != null) {
+            visitor.visitEnd();
+        }
+        return p;
+    }
+
+    private static int readElementValue(final ClassFileHeader header, int p, final String elementName,
+            final AnnotationVisitor visitor) {
+        final int tag = header.readUnsignedByte(p++);
+        if (visitor == null) {
+            switch (tag) {
+                case 'e':
+                    return p + 4;
+                case '@':
+                    return readElementValuePairs(header, p + 2, null);
+                case '[':
+                    return readArrayValues(header, p + 2, header.readUnsignedShort(p), null);
+                default:
+                    return p + 2;
+            }
+        }
+        switch (tag) {
+            case 'B':
+                visitor.visit(elementName, (byte) header.intAt(header.readUnsignedShort(p)));
+                return p + 2;
+            case 'C':
+                visitor.visit(elementName, (char) header.intAt(header.readUnsignedShort(p)));
+                return p + 2;
+            case 'S':
+                visitor.visit(elementName, (short) header.intAt(header.readUnsignedShort(p)));
+                return p + 2;
+            case 'I':
+                visitor.visit(elementName, header.intAt(header.readUnsignedShort(p)));
+                return p + 2;
+            case 'Z':
+                visitor.visit(elementName, header.intAt(header.readUnsignedShort(p)) != 0);
+                return p + 2;
+            case 'F':
+                visitor.visit(elementName, Float.intBitsToFloat(header.intAt(header.readUnsignedShort(p))));
+                return p + 2;
+            case 'J':
+                visitor.visit(elementName, header.longAt(header.readUnsignedShort(p)));
+                return p + 2;
+            case 'D':
+                visitor.visit(elementName, Double.longBitsToDouble(header.longAt(header.readUnsignedShort(p))));
+                return p + 2;
+            case 's':
+                visitor.visit(elementName, header.utf8(header.readUnsignedShort(p)));
+                return p + 2;
+            case 'c':
+                visitor.visit(elementName, Type.getType(header.utf8(header.readUnsignedShort(p))));
+                return p + 2;
+            case 'e':
+                visitor.visitEnum(elementName, header.utf8(header.readUnsignedShort(p)),
+                        header.utf8(header.readUnsignedShort(p + 2)));
+                return p + 4;
+            case '@':
+                return readElementValuePairs(header, p + 2,
+                        visitor.visitAnnotation(elementName, header.utf8(header.readUnsignedShort(p))));
+            case '[':
+                return readArray(header, p, elementName, visitor);
+            default:
+                throw new IllegalArgumentException("Unrecognized element value tag " + (char) tag);
+        }
+    }
+
+    /*
+     * Like ASM, reports a non-empty array of a primitive type as a single
+     * primitive array value and any other array element by element.
+     */
+    private static int readArray(final ClassFileHeader header, int p, final String elementName,
+            final AnnotationVisitor visitor) {
+        final int valueCount = header.readUnsignedShort(p);
+        p += 2;
+        if (valueCount == 0) {
+            return readArrayValues(header, p, 0, visitor.visitArray(elementName));
+        }
+        switch (header.readUnsignedByte(p)) {
+            case 'B': {
+                final byte[] values = new byte[valueCount];
+                for (int i = 0; i < valueCount; i++, p += 3) {
+                    values[i] = (byte) header.intAt(header.readUnsignedShort(p + 1));
+                }
+                visitor.visit(elementName, values);
+                return p;
+            }
+            case 'Z': {
+                final boolean[] values = new boolean[valueCount];
+                for (int i = 0; i < valueCount; i++, p += 3) {
+                    values[i] = header.intAt(header.readUnsignedShort(p + 1)) != 0;
+                }
+                visitor.visit(elementName, values);
+                return p;
+            }
+            case 'S': {
+                final short[] values = new short[valueCount];
+                for (int i = 0; i < valueCount; i++, p += 3) {
+                    values[i] = (short) header.intAt(header.readUnsignedShort(p + 1));
+                }
+                visitor.visit(elementName, values);
+                return p;
+            }
+            case 'C': {
+                final char[] values = new char[valueCount];
+                for (int i = 0; i < valueCount; i++, p += 3) {
+                    values[i] = (char) header.intAt(header.readUnsignedShort(p + 1));
+                }
+                visitor.visit(elementName, values);
+                return p;
+            }
+            case 'I': {
+                final int[] values = new int[valueCount];
+                for (int i = 0; i < valueCount; i++, p += 3) {
+                    values[i] = header.intAt(header.readUnsignedShort(p + 1));
+                }
+                visitor.visit(elementName, values);
+                return p;
+            }
+            case 'J': {
+                final long[] values = new long[valueCount];
+                for (int i = 0; i < valueCount; i++, p += 3) {
+                    values[i] = header.longAt(header.readUnsignedShort(p + 1));
+                }
+                visitor.visit(elementName, values);
+                return p;
+            }
+            case 'F': {
+                final float[] values = new float[valueCount];
+                for (int i = 0; i < valueCount; i++, p += 3) {
+                    values[i] = Float.intBitsToFloat(header.intAt(header.readUnsignedShort(p + 1)));
+                }
+                visitor.visit(elementName, values);
+                return p;
+            }
+            case 'D': {
+                final double[] values = new double[valueCount];
+                for (int i = 0; i < valueCount; i++, p += 3) {
+                    values[i] = Double.longBitsToDouble(header.longAt(header.readUnsignedShort(p + 1)));
+                }
+                visitor.visit(elementName, values);
+                return p;
+            }
+            default:
+                return readArrayValues(header, p, valueCount, visitor.visitArray(elementName));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MINIMAL;
+    }
+}
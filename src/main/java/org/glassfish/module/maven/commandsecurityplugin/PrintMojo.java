@@ -72,7 +72,7 @@ public class PrintMojo extends CommonMojo {
 
     URI parentOfTopURI;
 
-    Map<String,TypeProcessorImpl.Inhabitant> configBeans;
+    private TypeProcessorImpl typeProcessor;
 
     private OverrideManager om;
 
@@ -80,9 +80,13 @@ public class PrintMojo extends CommonMojo {
     public void execute() throws MojoExecutionException, MojoFailureException {
         isAnyOutput = getOrSet(IS_ANY_OUTPUT_NAME, isAnyOutput);
         parentOfTopURI = findParentOfTopURI();
-        final TypeProcessorImpl typeProcessor = new TypeProcessorImpl(this, project);
+        typeProcessor = new TypeProcessorImpl(this, project);
+        configure(typeProcessor);
         typeProcessor.execute();
-        configBeans = typeProcessor.configBeans();
+        logStatistics(typeProcessor);
+        reportConfigBeanGraphProblems(typeProcessor);
+        final boolean isLocatorMismatch = reportLocatorMismatches(typeProcessor);
+        writeClassSources(typeProcessor);
 
         om = initOverrideManager();
         final OutputFormatter outputFormatter = chooseOutputFormatter(outputType);
@@ -128,6 +132,9 @@ public class PrintMojo extends CommonMojo {
         }
         restoreIndent(indent);
         pw.flush();
+        if (isLocatorMismatch && typeProcessor.isFailureFatal()) {
+            throw new MojoFailureException("hk2-locator file(s) parsed differently from hk2");
+        }
     }
 
     private OverrideManager initOverrideManager()  {
@@ -313,7 +320,8 @@ public class PrintMojo extends CommonMojo {
                 if ( ! endpointInfo.useForAuthorization()) {
                     continue;
                 }
-                final TypeProcessorImpl.Inhabitant configBean = configBeans.get(endpointInfo.configBeanClassName().replace('/', '.'));
+                final TypeProcessorImpl.Inhabitant configBean = typeProcessor.configBeans().get(
+                        typeProcessor.symbols().dottedName(endpointInfo.configBeanClassName()));
                 if (configBean == null) {
                     getLog().error("Could not find config bean for RestEndpoint with config bean class name " + endpointInfo.configBeanClassName());
                     continue;
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Records, as text, everything an analysis engine reports that the
+ * authorization analysis could act on, so the output of different engines
+ * can be compared.
+ * <p>
+ * Fields are recorded only if they carry one of the field annotations of
+ * interest, because engines are free to omit the others.
+ */
+class RecordingClassVisitor extends ClassVisitor {
+
+    private final StringBuilder record = new StringBuilder();
+    private final Collection<String> fieldAnnotationDescs;
+
+    RecordingClassVisitor(final Collection<String> fieldAnnotationDescs) {
+        super(Opcodes.ASM7);
+        this.fieldAnnotationDescs = fieldAnnotationDescs;
+    }
+
+    String record() {
+        return record.toString();
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+        record.append("class ").append(name).append(" extends ").append(superName)
+                .append(" implements ").append(Arrays.toString(interfaces)).append('\n');
+    }
+
+    @Override
+    public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+        record.append("@").append(desc).append(visible ? "" : " (invisible)").append('\n');
+        return new AnnotationRecorder(record, "  ");
+    }
+
+    @Override
+    public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+        final StringBuilder fieldRecord = new StringBuilder();
+        fieldRecord.append("field ").append(name).append(' ').append(desc).append('\n');
+        return new FieldVisitor(Opcodes.ASM7) {
+
+            private boolean isOfInterest = false;
+
+            @Override
+            public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                isOfInterest |= fieldAnnotationDescs.contains(desc);
+                fieldRecord.append("  @").append(desc).append(visible ? "" : " (invisible)").append('\n');
+                return new AnnotationRecorder(fieldRecord, "    ");
+            }
+
+            @Override
+            public void visitEnd() {
+                if (isOfInterest) {
+                    record.append(fieldRecord);
+                }
+            }
+        };
+    }
+
+    @Override
+    public void visitEnd() {
+        record.append("end\n");
+    }
+
+    private static class AnnotationRecorder extends AnnotationVisitor {
+
+        private final StringBuilder record;
+        private final String indent;
+
+        AnnotationRecorder(final StringBuilder record, final String indent) {
+            super(Opcodes.ASM7);
+            this.record = record;
+            this.indent = indent;
+        }
+
+        @Override
+        public void visit(String name, Object value) {
+            record.append(indent).append(name).append(" = ");
+            if (value.getClass().isArray()) {
+                record.append(value.getClass().getComponentType().getName()).append('[');
+                for (int i = 0; i < Array.getLength(value); i++) {
+                    record.append(i == 0 ? "" : ", ").append(Array.get(value, i));
+                }
+                record.append(']');
+            } else {
+                record.append(value.getClass().getSimpleName()).append(' ').append(value);
+            }
+            record.append('\n');
+        }
+
+        @Override
+        public void visitEnum(String name, String desc, String value) {
+            record.append(indent).append(name).append(" = ").append(desc).append('.').append(value).append('\n');
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String desc) {
+            record.append(indent).append(name).append(" = @").append(desc).append('\n');
+            return new AnnotationRecorder(record, indent + "  ");
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name) {
+            record.append(indent).append(name).append(" = {").append('\n');
+            return new AnnotationRecorder(record, indent + "  ");
+        }
+
+        @Override
+        public void visitEnd() {
+            record.append(indent).append("end\n");
+        }
+    }
+}
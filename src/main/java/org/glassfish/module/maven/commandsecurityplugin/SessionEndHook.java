@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+
+/**
+ * Runs a task once the whole build has finished.
+ * <p>
+ * Maven reports the end of the session, after every project has been built
+ * or has failed or been skipped, to the execution listener of the build
+ * request, and looks that listener up anew for each event.  The hook puts
+ * itself in front of the listener already there, passing every event on to
+ * it, so the task runs however many threads build the reactor and whichever
+ * project finishes last.
+ */
+class SessionEndHook implements ExecutionListener {
+
+    private final ExecutionListener next;
+    private final Runnable task;
+
+    private SessionEndHook(final ExecutionListener next, final Runnable task) {
+        this.next = next;
+        this.task = task;
+    }
+
+    /**
+     * Arranges for the task to run when the session ends.
+     *
+     * @param session the current session
+     * @param task what to run once the build is done
+     * @return whether the hook could be installed; if not, the task will not run
+     */
+    static boolean install(final MavenSession session, final Runnable task) {
+        final MavenExecutionRequest request = (session == null ? null : session.getRequest());
+        if (request == null) {
+            return false;
+        }
+        synchronized (request) {
+            request.setExecutionListener(new SessionEndHook(request.getExecutionListener(), task));
+        }
+        return true;
+    }
+
+    @Override
+    public void sessionEnded(final ExecutionEvent event) {
+        try {
+            if (next != null) {
+                next.sessionEnded(event);
+            }
+        } finally {
+            task.run();
+        }
+    }
+
+    @Override
+    public void projectDiscoveryStarted(final ExecutionEvent event) {
+        if (next != null) {
+            next.projectDiscoveryStarted(event);
+        }
+    }
+
+    @Override
+    public void sessionStarted(final ExecutionEvent event) {
+        if (next != null) {
+            next.sessionStarted(event);
+        }
+    }
+
+    @Override
+    public void projectSkipped(final ExecutionEvent event) {
+        if (next != null) {
+            next.projectSkipped(event);
+        }
+    }
+
+    @Override
+    public void projectStarted(final ExecutionEvent event) {
+        if (next != null) {
+            next.projectStarted(event);
+        }
+    }
+
+    @Override
+    public void projectSucceeded(final ExecutionEvent event) {
+        if (next != null) {
+            next.projectSucceeded(event);
+        }
+    }
+
+    @Override
+    public void projectFailed(final ExecutionEvent event) {
+        if (next != null) {
+            next.projectFailed(event);
+        }
+    }
+
+    @Override
+    public void mojoSkipped(final ExecutionEvent event) {
+        if (next != null) {
+            next.mojoSkipped(event);
+        }
+    }
+
+    @Override
+    public void mojoStarted(final ExecutionEvent event) {
+        if (next != null) {
+            next.mojoStarted(event);
+        }
+    }
+
+    @Override
+    public void mojoSucceeded(final ExecutionEvent event) {
+        if (next != null) {
+            next.mojoSucceeded(event);
+        }
+    }
+
+    @Override
+    public void mojoFailed(final ExecutionEvent event) {
+        if (next != null) {
+            next.mojoFailed(event);
+        }
+    }
+
+    @Override
+    public void forkStarted(final ExecutionEvent event) {
+        if (next != null) {
+            next.forkStarted(event);
+        }
+    }
+
+    @Override
+    public void forkSucceeded(final ExecutionEvent event) {
+        if (next != null) {
+            next.forkSucceeded(event);
+        }
+    }
+
+    @Override
+    public void forkFailed(final ExecutionEvent event) {
+        if (next != null) {
+            next.forkFailed(event);
+        }
+    }
+
+    @Override
+    public void forkedProjectStarted(final ExecutionEvent event) {
+        if (next != null) {
+            next.forkedProjectStarted(event);
+        }
+    }
+
+    @Override
+    public void forkedProjectSucceeded(final ExecutionEvent event) {
+        if (next != null) {
+            next.forkedProjectSucceeded(event);
+        }
+    }
+
+    @Override
+    public void forkedProjectFailed(final ExecutionEvent event) {
+        if (next != null) {
+            next.forkedProjectFailed(event);
+        }
+    }
+}
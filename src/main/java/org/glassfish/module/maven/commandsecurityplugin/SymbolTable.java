@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reactor-wide table of the type names the analysis and the config bean
+ * graph use.  Each type gets one symbol holding its internal
+ * (slash-separated) and dotted names, so every module shares one copy of
+ * each name and converting between the two forms is a lookup rather than a
+ * new string.
+ */
+class SymbolTable {
+
+    /**
+     * One type name.  Symbols are numbered from 0 in the order they are
+     * first asked for.
+     */
+    static class Symbol {
+        final int id;
+        final String internalName;
+        final String dottedName;
+
+        private Symbol(final int id, final String internalName, final String dottedName) {
+            this.id = id;
+            this.internalName = internalName;
+            this.dottedName = dottedName;
+        }
+
+        @Override
+        public String toString() {
+            return dottedName;
+        }
+    }
+
+    private final Map<String,Symbol> byName = new ConcurrentHashMap<>();
+    private volatile Symbol[] byId = new Symbol[1024];
+    private int size = 0;
+
+    /**
+     * @param name a type name, internal or dotted
+     * @return the type's symbol, created if this is the first time the type is named
+     */
+    Symbol symbol(final String name) {
+        final Symbol existing = byName.get(name);
+        return (existing != null ? existing : add(name));
+    }
+
+    /**
+     * @param name a type name, internal or dotted; may be null
+     * @return the shared copy of the type's internal name; null if name is null
+     */
+    String internalName(final String name) {
+        return (name == null ? null : symbol(name).internalName);
+    }
+
+    /**
+     * @param name a type name, internal or dotted; may be null
+     * @return the shared copy of the type's dotted name; null if name is null
+     */
+    String dottedName(final String name) {
+        return (name == null ? null : symbol(name).dottedName);
+    }
+
+    /**
+     * @param name a type name; may be null
+     * @return the shared copy of the name, in the same form; null if name is null
+     */
+    String intern(final String name) {
+        if (name == null) {
+            return null;
+        }
+        final Symbol symbol = symbol(name);
+        return (symbol.internalName.equals(name) ? symbol.internalName
+                : symbol.dottedName.equals(name) ? symbol.dottedName : name);
+    }
+
+    /**
+     * @param id a symbol's number
+     * @return the symbol
+     */
+    Symbol symbol(final int id) {
+        return byId[id];
+    }
+
+    /**
+     * @return how many symbols there are
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    private synchronized Symbol add(final String name) {
+        Symbol result = byName.get(name);
+        if (result != null) {
+            return result;
+        }
+        final String internalName = name.replace('.', '/');
+        final String dottedName = name.replace('/', '.');
+        result = byName.get(internalName);
+        if (result == null) {
+            result = byName.get(dottedName);
+        }
+        if (result == null) {
+            if (size == byId.length) {
+                byId = Arrays.copyOf(byId, size * 2);
+            }
+            /*
+             * The name as given is one of the two forms unless it mixes
+             * separators, so usually only one new string is kept.
+             */
+            result = new Symbol(size, (internalName.equals(name) ? name : internalName),
+                    (dottedName.equals(name) ? name : dottedName));
+            byId[size++] = result;
+            byName.put(result.internalName, result);
+            byName.put(result.dottedName, result);
+        }
+        byName.put(name, result);
+        return result;
+    }
+}
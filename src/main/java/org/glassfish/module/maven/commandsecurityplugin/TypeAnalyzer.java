@@ -17,9 +17,6 @@
 
 package org.glassfish.module.maven.commandsecurityplugin;
 
-import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.io.InputStream;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -27,11 +24,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 
+import org.jboss.jandex.ClassInfo;
 import org.objectweb.asm.AnnotationVisitor;
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.Opcodes;
@@ -45,8 +41,11 @@ import org.objectweb.asm.Type;
  */
 public class TypeAnalyzer {
 
-    private final InputStream classStream;
-    private final boolean isOpenedAsFile;
+    private final ClassFileBuffer classBuffer;
+    private final ClassInfo classInfo;
+    private final CommandSecurityIndex.IndexedCommand indexedCommand;
+    private final String summarizedClassName;
+    private final ClassSummaryIndex.Summary summary;
 
     private final static String ACCESS_REQUIRED_DESC_PATH_ONLY = "org/glassfish/api/admin/AccessRequired";
     private final static String ACCESS_REQUIRED_DESC = 'L' + ACCESS_REQUIRED_DESC_PATH_ONLY + ';';
@@ -73,79 +72,339 @@ public class TypeAnalyzer {
     private static final Collection<String> AUTHORIZATION_RELATED_INTERFACES =
             new HashSet<>(Arrays.asList("org/glassfish/api/admin/AdminCommandSecurity$AccessCheckProvider"));
 
+    private static final String PARAM_ANNO_PATH_ONLY = "org/glassfish/api/Param";
+    private static final String SERVICE_ANNO_PATH_ONLY = "org/jvnet/hk2/annotations/Service";
+
+    /*
+     * A class whose constant pool mentions none of these cannot be a command
+     * in its own right, carry authorization annos or declare @Params.
+     * (AdminCommand is also a prefix of AdminCommandSecurity$AccessCheckProvider.)
+     */
+    private static final byte[][] RELEVANT_NAMES = ClassFileHeader.markers(
+            ADMIN_COMMAND_INTERNAL_NAME,
+            ACCESS_REQUIRED_DESC_PATH_ONLY,
+            REST_ENDPOINT_DESC_PATH_ONLY,
+            PARAM_ANNO_PATH_ONLY,
+            SERVICE_ANNO_PATH_ONLY);
+
+    /*
+     * @Params cannot affect the verdict, so a verdict-only analysis need not
+     * scan a class just because it declares some.
+     */
+    private static final byte[][] VERDICT_RELEVANT_NAMES = ClassFileHeader.markers(
+            ADMIN_COMMAND_INTERNAL_NAME,
+            ACCESS_REQUIRED_DESC_PATH_ONLY,
+            REST_ENDPOINT_DESC_PATH_ONLY,
+            SERVICE_ANNO_PATH_ONLY);
+
+    /*
+     * Names whose mention by each class the per-JAR class summaries record,
+     * in bit order.  The first four decide the verdict; @Params matter to the
+     * full analysis too.
+     */
+    static final List<String> SUMMARIZED_NAMES = Arrays.asList(
+            ADMIN_COMMAND_INTERNAL_NAME,
+            ACCESS_REQUIRED_DESC_PATH_ONLY,
+            REST_ENDPOINT_DESC_PATH_ONLY,
+            SERVICE_ANNO_PATH_ONLY,
+            PARAM_ANNO_PATH_ONLY,
+            "org/glassfish/api/admin/Supplemental");
+    private static final int VERDICT_RELEVANT_MENTIONS = 0b01111;
+    private static final int RELEVANT_MENTIONS = 0b11111;
+
+    /*
+     * Field annotations the FieldScanner acts on; engines may skip fields with none of these.
+     */
+    static final Collection<String> FIELD_ANNOTATION_DESCS = Arrays.asList(
+            'L' + PARAM_ANNO_PATH_ONLY + ';',
+            'L' + ACCESS_REQUIRED_DESC_PATH_ONLY + "$To;",
+            'L' + ACCESS_REQUIRED_DESC_PATH_ONLY + "$NewChild;");
+
+    static final Collection<String> VERDICT_FIELD_ANNOTATION_DESCS = Arrays.asList(
+            'L' + ACCESS_REQUIRED_DESC_PATH_ONLY + "$To;",
+            'L' + ACCESS_REQUIRED_DESC_PATH_ONLY + "$NewChild;");
+
     private StringBuilder trace = null;
 
     private CommandAuthorizationInfo commandAuthInfo = null;
     private boolean isCommand = false;
 
-    private final Map<String,CommandAuthorizationInfo> knownCommandTypes;
     private final TypeProcessor typeProcessor;
 
     private CommandScanner cs;
 
+    private boolean isPrefilterEnabled = true;
+    private boolean isPrefiltered = false;
+    private boolean isVerdictOnly = false;
 
-//    TypeAnalyzer(final File classFile, final TypeProcessor typeProcessor) throws FileNotFoundException {
-//        this(new BufferedInputStream(new FileInputStream(classFile)), true,
-//                typeProcessor);
-//    }
+    private AnalysisEngine engine = AsmAnalysisEngine.INSTANCE;
+    private long parseNanos = 0;
+    private EngineBenchmark benchmark = null;
 
-    TypeAnalyzer(final InputStream classStream, final Map<String,CommandAuthorizationInfo> knownCommandTypes, final TypeProcessor typeProcessor) {
-        this(classStream, false, knownCommandTypes, typeProcessor);
+
+    /**
+     * Creates an analyzer for the class file held in the buffer.  The analyzer
+     * releases the buffer once it has parsed the class.
+     *
+     * @param classBuffer the class bytes
+     * @param typeProcessor the processor which supplies the config beans
+     */
+    TypeAnalyzer(final ClassFileBuffer classBuffer, final TypeProcessor typeProcessor) {
+        this.classBuffer = classBuffer;
+        this.classInfo = null;
+        this.indexedCommand = null;
+        this.summarizedClassName = null;
+        this.summary = null;
+        this.typeProcessor = typeProcessor;
     }
 
-    void setTrace(final StringBuilder sb) {
-        trace = sb;
+    /**
+     * Creates an analyzer for a class recorded in a Jandex index, so the
+     * class's byte code need not be read.
+     *
+     * @param classInfo the indexed class
+     * @param typeProcessor the processor which supplies the config beans
+     */
+    TypeAnalyzer(final ClassInfo classInfo, final TypeProcessor typeProcessor) {
+        this.classBuffer = null;
+        this.classInfo = classInfo;
+        this.indexedCommand = null;
+        this.summarizedClassName = null;
+        this.summary = null;
+        this.typeProcessor = typeProcessor;
     }
 
-    private TypeAnalyzer(final InputStream classStream, final boolean isOpenedAsFile,
-            final Map<String,CommandAuthorizationInfo> knownCommandTypes,
+    /**
+     * Creates an analyzer for a command recorded in a command security index
+     * at compile time, so the command's byte code need not be read.
+     *
+     * @param indexedCommand the indexed command
+     * @param typeProcessor the processor which supplies the config beans
+     * @see CommandSecurityIndexProcessor
+     */
+    TypeAnalyzer(final CommandSecurityIndex.IndexedCommand indexedCommand, final TypeProcessor typeProcessor) {
+        this.classBuffer = null;
+        this.classInfo = null;
+        this.indexedCommand = indexedCommand;
+        this.summarizedClassName = null;
+        this.summary = null;
+        this.typeProcessor = typeProcessor;
+    }
+
+    /**
+     * Creates an analyzer for a class whose JAR summary shows it mentions
+     * nothing authorization-related, so the class is handled from the summary
+     * just as the constant pool prefilter would handle it.
+     *
+     * @param internalClassName internal name (slash-separated) of the class
+     * @param summary the class's summary
+     * @param typeProcessor the processor which supplies the config beans
+     * @see #isRelevant(ClassSummaryIndex.Summary, boolean)
+     */
+    TypeAnalyzer(final String internalClassName, final ClassSummaryIndex.Summary summary,
             final TypeProcessor typeProcessor) {
-        this.classStream = classStream;
-        this.isOpenedAsFile = isOpenedAsFile;
-        this.knownCommandTypes = knownCommandTypes;
+        this.classBuffer = null;
+        this.classInfo = null;
+        this.indexedCommand = null;
+        this.summarizedClassName = internalClassName;
+        this.summary = summary;
         this.typeProcessor = typeProcessor;
     }
 
-    void run() throws FileNotFoundException, IOException {
-        try {
-            final ClassReader classReader = new ClassReader(classStream);
-            cs = new CommandScanner();
-            classReader.accept(cs, ClassReader.SKIP_CODE + ClassReader.SKIP_DEBUG + ClassReader.SKIP_FRAMES);
-            isCommand = cs.isCommand();
-//            if (cs.isCommand()) {
-                commandAuthInfo = cs.commandInfo();
-//            }
+    /**
+     * Reports whether a class's summary shows it might matter to the analysis,
+     * so that its class file has to be read.
+     *
+     * @param summary the class's summary
+     * @param isVerdictOnly whether only the verdict is needed
+     * @return true if the class mentions anything the analysis acts on
+     */
+    static boolean isRelevant(final ClassSummaryIndex.Summary summary, final boolean isVerdictOnly) {
+        return (summary.mentions() & (isVerdictOnly ? VERDICT_RELEVANT_MENTIONS : RELEVANT_MENTIONS)) != 0;
+    }
 
-        } finally {
-            if (isOpenedAsFile) {
-                classStream.close();
+    void setTrace(final StringBuilder sb) {
+        trace = sb;
+    }
+
+    void setPrefilterEnabled(final boolean isPrefilterEnabled) {
+        this.isPrefilterEnabled = isPrefilterEnabled;
+    }
+
+    /**
+     * Sets whether the analysis only needs to decide whether the class handles
+     * authorization.  Such an analysis records no @Params or REST endpoint
+     * details and ignores the class's remaining fields once authorization has
+     * been found.
+     *
+     * @param isVerdictOnly true to collect only what the verdict needs
+     */
+    void setVerdictOnly(final boolean isVerdictOnly) {
+        this.isVerdictOnly = isVerdictOnly;
+    }
+
+    void setEngine(final AnalysisEngine engine) {
+        this.engine = engine;
+    }
+
+    void setBenchmark(final EngineBenchmark benchmark) {
+        this.benchmark = benchmark;
+    }
+
+    void run() {
+        cs = new CommandScanner();
+        final Collection<String> fieldAnnotationDescs =
+                (isVerdictOnly ? VERDICT_FIELD_ANNOTATION_DESCS : FIELD_ANNOTATION_DESCS);
+        if (indexedCommand != null) {
+            final long start = System.nanoTime();
+            if (trace != null) {
+                trace.append(LINE_SEP).append("  Reading ").append(indexedCommand.name).append(" from a command security index");
+            }
+            CommandSecurityIndexReader.accept(indexedCommand, cs, fieldAnnotationDescs);
+            parseNanos = System.nanoTime() - start;
+            isCommand = cs.isCommand();
+            commandAuthInfo = cs.commandInfo();
+            return;
+        }
+        if (classInfo != null) {
+            final long start = System.nanoTime();
+            if (trace != null) {
+                trace.append(LINE_SEP).append("  Reading ").append(classInfo.name()).append(" from a Jandex index");
+            }
+            JandexClassReader.accept(classInfo, cs, fieldAnnotationDescs);
+            parseNanos = System.nanoTime() - start;
+            isCommand = cs.isCommand();
+            commandAuthInfo = cs.commandInfo();
+            return;
+        }
+        if (summary != null) {
+            isPrefiltered = true;
+            cs.visit(0, summary.access(), summarizedClassName, null, summary.superName(),
+                    summary.interfaces().toArray(new String[0]));
+            if (trace != null) {
+                trace.append(LINE_SEP).append("  JAR summary of ").append(summarizedClassName).append(" mentions nothing authorization-related; skipping its class file");
             }
+            cs.visitEnd();
+            isCommand = cs.isCommand();
+            commandAuthInfo = cs.commandInfo();
+            return;
+        }
+        try {
+            final long start = System.nanoTime();
+            final ClassFileHeader header = new ClassFileHeader(classBuffer.bytes(), 0, classBuffer.length());
+            if ( ! isPrefilterEnabled || ! runFromHeader(header)) {
+                engine.accept(header, cs, fieldAnnotationDescs);
+            }
+            parseNanos = System.nanoTime() - start;
+            if (benchmark != null) {
+                benchmark.run(header, fieldAnnotationDescs);
+            }
+        } finally {
+            /*
+             * Nothing refers to the class bytes any more, so the ancestors can
+             * reuse the buffer.
+             */
+            classBuffer.release();
+        }
+        isCommand = cs.isCommand();
+//        if (cs.isCommand()) {
+            commandAuthInfo = cs.commandInfo();
+//        }
+    }
+
+    /**
+     * Drives the scanner from the class header alone if the constant pool shows
+     * that a full visit would find nothing of interest.  The ancestors are still
+     * processed as usual.
+     *
+     * @param header the class file header
+     * @return true if the class was handled from its header; false if it needs a full visit
+     */
+    private boolean runFromHeader(final ClassFileHeader header) {
+        if (header.mentionsAny(isVerdictOnly ? VERDICT_RELEVANT_NAMES : RELEVANT_NAMES)) {
+            return false;
         }
+        isPrefiltered = true;
+        cs.visit(header.version(), header.access(), header.className(), null, header.superName(), header.interfaces());
+        if (trace != null) {
+            trace.append(LINE_SEP).append("  Constant pool of ").append(header.className()).append(" mentions nothing authorization-related; skipping full scan");
+        }
+        cs.visitEnd();
+        return true;
+    }
+
+    /**
+     * @return nanoseconds spent parsing this class, not counting its ancestors
+     */
+    long parseNanos() {
+        return parseNanos;
+    }
+
+    /**
+     * @return whether the class was handled from its header by the constant pool prefilter
+     */
+    boolean isPrefiltered() {
+        return isPrefiltered;
+    }
+
+    /**
+     * @return whether the class was analyzed from a command security index rather than its byte code
+     */
+    boolean isFromCommandIndex() {
+        return indexedCommand != null;
+    }
+
+    /**
+     * @return whether the class was analyzed from a Jandex index rather than its byte code
+     */
+    boolean isFromJandexIndex() {
+        return classInfo != null;
+    }
+
+    /**
+     * @return whether the class was handled from its JAR's summary rather than its byte code
+     */
+    boolean isFromSummary() {
+        return summary != null;
     }
 
     List<String> interfaces() {
         return (cs == null ? Collections.EMPTY_LIST : cs.interfaces);
     }
 
+    String className() {
+        return (cs == null ? null : cs.className);
+    }
+
+    /**
+     * @return internal name of the superclass; null for java/lang/Object
+     */
+    String superName() {
+        return (cs == null ? null : cs.superName);
+    }
+
     /**
      * Returns the command auth information for the class analyzed by this
-     * instance.
+     * instance.  This covers only what the class itself declares; the type
+     * processor links it to the information of the class's ancestors.
      *
-     * @return command auth info if the analyzed class is a command; null otherwise
+     * @return command auth info for the analyzed class
      */
     CommandAuthorizationInfo commandAuthInfo() {
         return commandAuthInfo;
     }
 
+    /**
+     * @return whether the class itself implements AdminCommand
+     */
     boolean isCommand() {
         return isCommand;
     }
 
     /**
-     * Analyzes a class as ASM invokes the various methods during
-     * a scan of the class's byte code.  After the class (and its ancestors
-     * if needed) have been analyzed, the commandAuthInfo will be non-null
-     * if the class is a command and null if it is not a command.
+     * Analyzes a class as the analysis engine reports what it finds in the
+     * class's byte code.  After the class has been analyzed, the commandAuthInfo
+     * holds what the class itself declares.
      */
     private class CommandScanner extends ClassVisitor {
 
@@ -234,12 +493,14 @@ public class TypeAnalyzer {
                       String signature,
                       Object value) {
 
-//            if (! commandAuthInfo.isOK()) {
-                final FieldScanner f = new FieldScanner(commandAuthInfo, name, desc);
-                return f;
-//            } else {
-//                return null;
-//            }
+            if (isVerdictOnly && commandAuthInfo.isOK()) {
+                /*
+                 * Nothing in the remaining fields can change the verdict.
+                 */
+                return null;
+            }
+            final FieldScanner f = new FieldScanner(commandAuthInfo, name, desc);
+            return f;
         }
 
         @Override
@@ -306,37 +567,6 @@ public class TypeAnalyzer {
                     trace.append(LINE_SEP).append("  Recognized that ").append(className).append(" is not itself a command; an ancestor might be");
                 }
             }
-
-           /*
-            * Process the class's ancestors to gather any inherited @Params or
-            * @RestEndpoints.
-            */
-            try {
-                if (superName != null) {
-                    final CommandAuthorizationInfo parentInfo = typeProcessor.processType(superName);
-                    boolean isParentCommand = knownCommandTypes.containsKey(superName);
-                    isCommand |= isParentCommand;
-                    if (isParentCommand) {
-                        if (trace != null) {
-                            trace.append(LINE_SEP).
-                                    append("  Detected that ").
-                                    append(className).
-                                    append(" is a command based on its ancestry; check of parent and its ancestry for auth: ").
-                                    append(parentInfo.isOKDeep());
-                        }
-
-                    } else if ( ! isCommand) {
-                        if (trace != null) {
-                            trace.append(LINE_SEP).append("  Detected that ").
-                                    append(className).
-                                    append(" is not a command, even including its ancestry");
-                        }
-                    }
-                    commandAuthInfo.setParent(parentInfo);
-                }
-            } catch (Exception ex) {
-                throw new RuntimeException(ex);
-            }
         }
 
 
@@ -500,8 +730,10 @@ public class TypeAnalyzer {
 
         @Override
         public void visitEnd() {
-            info = new RestEndpointInfo(configBeanClassName, path, opType, useForAuthorization);
-            authInfo.addRestEndpoint(info);
+            if ( ! isVerdictOnly) {
+                info = new RestEndpointInfo(configBeanClassName, path, opType, useForAuthorization);
+                authInfo.addRestEndpoint(info);
+            }
             if (useForAuthorization) {
                 authInfo.hasRestAnno.set(true);
             }
@@ -631,6 +863,9 @@ public class TypeAnalyzer {
                 }
                 commandAuthInfo.hasFieldLevelAccessRequiredAnno.set(true);
             }
+            if (isVerdictOnly) {
+                return null;
+            }
             if (desc.equals(PARAM_ANNO_DESC)) {
                 param = new CommandAuthorizationInfo.Param(name, friendlyTypeName);
                 return new ParamAnnotationScanner(param);
@@ -864,7 +1099,7 @@ public class TypeAnalyzer {
 
         @Override
         public void visitEnd() {
-            final String dottedTypeName = fieldScanner.fullFriendlyTypeName().replace("/", ".");
+            final String dottedTypeName = typeProcessor.symbols().dottedName(fieldScanner.fullFriendlyTypeName());
             TypeProcessorImpl.Inhabitant i = typeProcessor.configBeans().get(dottedTypeName);
             Objects.requireNonNull(i, "The inhabitant found for this type was null: " + dottedTypeName);
             for (String action : actions) {
@@ -937,7 +1172,7 @@ public class TypeAnalyzer {
 
         @Override
         public void visitEnd() {
-            final String dottedTypeName = fieldScanner.fullFriendlyTypeName().replace("/", ".");
+            final String dottedTypeName = typeProcessor.symbols().dottedName(fieldScanner.fullFriendlyTypeName());
             TypeProcessorImpl.Inhabitant i = typeProcessor.configBeans().get(dottedTypeName);
             if (i == null) {
                 throw new IllegalArgumentException("Could not find configBean for " + dottedTypeName);
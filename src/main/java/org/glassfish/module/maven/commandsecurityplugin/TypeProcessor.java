@@ -1,4 +1,5 @@
 /*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
  * Copyright (c) 2012, 2018 Oracle and/or its affiliates. All rights reserved.
  *
  * This program and the accompanying materials are made available under the
@@ -33,7 +34,6 @@ interface TypeProcessor {
     String KNOWN_CRUD_CONFIG_BEAN_TYPES_NAME = "org.glassfish.api.admin.knownCRUDConfigBeansTypes";
 
 
-    CommandAuthorizationInfo processType(final String internalClassName) throws MojoExecutionException, MojoFailureException;
 //    CommandAuthorizationInfo processConfigBean(final String internalClassName) throws MojoFailureException, MojoExecutionException;
     void execute() throws MojoExecutionException, MojoFailureException;
     List<String> okClassNames();
@@ -42,4 +42,6 @@ interface TypeProcessor {
     StringBuilder trace();
     Collection<CommandAuthorizationInfo> authInfosThisModule();
     Map<String,TypeProcessorImpl.Inhabitant> configBeans();
+    AnalysisStatistics statistics();
+    SymbolTable symbols();
 }
@@ -17,21 +17,17 @@
 
 package org.glassfish.module.maven.commandsecurityplugin;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.LineNumberReader;
-import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -40,21 +36,28 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
-import org.glassfish.hk2.utilities.DescriptorImpl;
 import org.glassfish.module.maven.commandsecurityplugin.CommandAuthorizationInfo.Param;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
 import org.objectweb.asm.Type;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
 /**
  * Verifies that all inhabitants in the module that are commands also take care
  * of authorization, issuing warnings or failing the build (configurable) if
@@ -74,27 +77,45 @@ public class TypeProcessorImpl implements TypeProcessor {
 
     private boolean isFailureFatal;
     private boolean isCheckAPIvsParse;
+    private boolean isPrefilterEnabled = true;
+    private boolean isVerdictOnly = false;
+    private boolean isCommandIndexEnabled = true;
+    private boolean isJandexEnabled = true;
+    private boolean isSummaryEnabled = false;
+    private File summaryCacheDir = null;
+    private List<String> terminalPackagePrefixes = Collections.emptyList();
+    private int analysisThreads = 1;
+    private Collection<String> locatorIncludes = Collections.singleton(ALL_LOCATORS);
+    private Collection<String> locatorExcludes = Collections.emptyList();
+    private AnalysisEngine engine = AsmAnalysisEngine.INSTANCE;
+    private EngineBenchmark benchmark = null;
+    private LocatorVerification verification = null;
 
     private static final String KNOWN_NONCOMMAND_TYPES_NAME = "org.glassfish.api.admin.knownNonCommandTypes";
     private static final String PROCESSED_MODULES_NAME = "org.glassfish.api.admin.processedModules";
     private static final String CONFIG_BEANS_NAME = "org.glassfish.api.admin.configBeans";
+    private static final String CONFIG_BEAN_GRAPH_NAME = "org.glassfish.api.admin.configBeanGraph";
+
+    private static final String SOURCE_COMMAND_INDEX = "command security index";
+    private static final String SOURCE_JANDEX = "Jandex index";
+    private static final String SOURCE_SUMMARY = "JAR summary";
+    private static final String SOURCE_BYTE_CODE = "byte code";
+    private static final String SOURCE_BYTE_CODE_HEADER = "byte code header";
+
+    private static final String CLASS_FILE_INDEX_NAME = "org.glassfish.api.admin.classFileIndex";
+    private static final String STATISTICS_NAME = "org.glassfish.api.admin.analysisStatistics";
+    private static final String BENCHMARK_NAME = "org.glassfish.api.admin.engineBenchmark";
+    private static final String LOCATOR_VERIFICATION_NAME = "org.glassfish.api.admin.locatorVerification";
+    private static final String CLASS_HIERARCHY_NAME = "org.glassfish.api.admin.classHierarchy";
+    private static final String SYMBOL_TABLE_NAME = "org.glassfish.api.admin.symbolTable";
+    private static final String VERDICT_ONLY_SUFFIX = ".verdictOnly";
+    private static final String PARENT_NAMES_FROM_BYTE_CODE_NAME = "org.glassfish.api.admin.parentNamesFromByteCode";
+
+    private static final String ADMIN_COMMAND_INTERNAL_NAME = "org/glassfish/api/admin/AdminCommand";
+    private static final String ACCESS_CHECK_PROVIDER_INTERNAL_NAME = "org/glassfish/api/admin/AdminCommandSecurity$AccessCheckProvider";
 
     private static final String INHABITANTS_PATHS_PREFIX = "META-INF/hk2-locator/";
-    private static final String[] INHABITANTS_PATHS = {"default", "tenant-scoped"};
-
-//    private static final Pattern INHABITANT_DESCR_PATTERN = Pattern.compile("(\\w+)=([^:]+)(?:\\:(.+))*");
-    private static final Pattern INHABITANT_IMPL_CLASS_PATTERN = Pattern.compile("\\[([^\\]]+)\\]");
-    private static final Pattern INHABITANT_CONTRACTS_PATTERN = Pattern.compile("contract=\\{([^\\}]+)\\}");
-    private static final Pattern INHABITANT_NAME_PATTERN = Pattern.compile("name=(.+)");
-    private final static Pattern CONFIG_BEAN_METADATA_PREFIX_PATTERN = Pattern.compile(
-            "metadata=target=\\{([^\\}]+)\\}(.*)"); //
-
-    // ,<element-name>={class-name} or ,<element-name>={collection\:class-name}
-    private final static Pattern CONFIG_BEAN_CHILD_PATTERN = Pattern.compile(
-            ",(?:<([^>]+)>=\\{(?:collection\\\\:)?([^,}]+)[},])|(?:\\@[^}]+})|(?:key=[^}]+)|(?:keyed-as=[^}]+)");
-    private static final Pattern GENERIC_COMMAND_INFO_PATTERN = Pattern.compile("metadata=MethodListActual=\\{([^\\}]+)\\},MethodName=\\{([^\\}]+)\\},ParentConfigured=\\{([^\\}]+)\\}");
-    private static final Pattern CONFIG_BEAN_CHILD_NAME_KEY_PATTERN = Pattern.compile("<([^>]+)>");
-
+    private static final String ALL_LOCATORS = "*";
 
     private static final String ADMIN_COMMAND_NAME = "org.glassfish.api.admin.AdminCommand";
 
@@ -130,11 +151,23 @@ public class TypeProcessorImpl implements TypeProcessor {
     }
 
     private URLClassLoader loader;
+    private ClassFileIndex.ClassPath classPath;
     private File buildDir;
 
     private StringBuilder trace = null;
 
-    private Map<String,CommandAuthorizationInfo> knownCommandTypes = null;
+    private final Map<String,CompletableFuture<ClassHierarchy.Node>> headerReads = new ConcurrentHashMap<>();
+
+    /*
+     * Where this module's analysis took each class it read from, by internal
+     * class name.
+     */
+    private final Map<String,String> classSources = new ConcurrentSkipListMap<>();
+
+    /*
+     * Analyzed classes, commands or not, and those being analyzed now.
+     */
+    private Map<String,CompletableFuture<CommandAuthorizationInfo>> knownCommandTypes = null;
     private Set<String> knownNonCommandTypes = null;
 
     private Collection<CommandAuthorizationInfo> authInfosThisModule = new ArrayList<CommandAuthorizationInfo>();
@@ -145,9 +178,24 @@ public class TypeProcessorImpl implements TypeProcessor {
     private Set<URL> jarsProcessedForConfigBeans = null;
 
     private Map<String,Inhabitant> configBeans = null;
+    private boolean isClassPathConfigBeansLoaded = false;
+
+    private AnalysisStatistics statistics = null;
+
+    private ClassHierarchy hierarchy = null;
+
+    private SymbolTable symbols = null;
+
+    private ConfigBeanGraph configBeanGraph = null;
+
+    /*
+     * Parent config bean name derived from each config bean's interfaces; "" if none.
+     */
+    private Map<String,String> parentNamesFromByteCode = null;
 
     private final AbstractMojo mojo;
     private final MavenProject project;
+    private MavenSession session;
 
 
     TypeProcessorImpl(final AbstractMojo mojo,
@@ -173,29 +221,206 @@ public class TypeProcessorImpl implements TypeProcessor {
                 Boolean.parseBoolean(isCheckAPIvsParse));
     }
 
+    /**
+     * Returns the config beans known so far, first reading those declared on
+     * the module's class path if that has not happened yet.  Only
+     * @AccessRequired.To, @AccessRequired.NewChild, @RestEndpoint, the
+     * generic CRUD commands and the module's own config beans need the config
+     * beans, so a module with none of them never reads the class path's
+     * locator files.
+     *
+     * @return config beans, by class name
+     */
     @Override
-    public Map<String,Inhabitant> configBeans() {
+    public synchronized Map<String,Inhabitant> configBeans() {
+        if ( ! isClassPathConfigBeansLoaded) {
+            isClassPathConfigBeansLoaded = true;
+            try {
+                loadConfigBeans();
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Error loading config beans", ex);
+            }
+        }
         return configBeans;
     }
 
-    private Log getLog() {
-        return mojo.getLog();
+    /**
+     * Reports where this module's analysis took each class it read from: a
+     * command security index, a Jandex index, a JAR summary, or the byte
+     * code, whole or just its header.  A class read by an earlier module is
+     * not read again and so does not appear.
+     *
+     * @return the source of each class read, by internal class name, in name order
+     */
+    Map<String,String> classSources() {
+        return classSources;
+    }
+
+    @Override
+    public AnalysisStatistics statistics() {
+        return statistics;
+    }
+
+    @Override
+    public SymbolTable symbols() {
+        return symbols;
+    }
+
+    /**
+     * @return the reactor-wide config bean graph
+     */
+    ConfigBeanGraph configBeanGraph() {
+        return configBeanGraph;
     }
 
     /**
-     * Processes a type (class or interface), analyzing its byte code to see if
-     * it is a command and, if so, checking for authorization-related annos
-     * and interface implementations, finally recording whether it is a known command
-     * or a known non-command (to speed up analysis of other types that might
-     * refer to this one).
+     * Sets whether classes whose constant pool mentions nothing authorization-related
+     * are analyzed from their header only.
      *
-     * @param internalClassName
-     * @return the command authorization info for the class if it is a command, null otherwise
-     * @throws MojoExecutionException
+     * @param isPrefilterEnabled true to use the constant pool prefilter
      */
-    @Override
-    public CommandAuthorizationInfo processType(final String internalClassName) throws MojoFailureException, MojoExecutionException {
-        return processType(internalClassName, false);
+    void setPrefilterEnabled(final boolean isPrefilterEnabled) {
+        this.isPrefilterEnabled = isPrefilterEnabled;
+    }
+
+    /**
+     * Sets whether commands recorded in a command security index, written by
+     * {@link CommandSecurityIndexProcessor} at compile time, are analyzed from
+     * the index instead of from their byte code.
+     *
+     * @param isCommandIndexEnabled true to use command security indexes where present
+     */
+    void setCommandIndexEnabled(final boolean isCommandIndexEnabled) {
+        this.isCommandIndexEnabled = isCommandIndexEnabled;
+    }
+
+    /**
+     * Sets whether classes in JARs which carry a Jandex index are analyzed
+     * from the index instead of from their byte code.
+     *
+     * @param isJandexEnabled true to use Jandex indexes where present
+     */
+    void setJandexEnabled(final boolean isJandexEnabled) {
+        this.isJandexEnabled = isJandexEnabled;
+    }
+
+    /**
+     * Sets whether JARs are summarized: each JAR's classes are read once, in
+     * one pass, for their ancestry and whether they mention anything
+     * authorization-related, and the summary saved for later builds.  The
+     * first module in the reactor decides for the whole build.
+     *
+     * @param isSummaryEnabled whether to summarize JARs
+     * @param summaryCacheDir where to save summaries between builds; null to not save them
+     */
+    void setSummaries(final boolean isSummaryEnabled, final File summaryCacheDir) {
+        this.isSummaryEnabled = isSummaryEnabled;
+        this.summaryCacheDir = summaryCacheDir;
+    }
+
+    /**
+     * Sets the session whose end closes the JARs the reactor-wide class file
+     * index opens.
+     *
+     * @param session the current session
+     */
+    void setSession(final MavenSession session) {
+        this.session = session;
+    }
+
+    /**
+     * Sets how many threads analyze a module's commands.  Commands analyzed
+     * together which share an ancestor wait for one analysis of it.
+     *
+     * @param analysisThreads the number of threads; 1 to analyze one command at a time
+     */
+    void setAnalysisThreads(final int analysisThreads) {
+        this.analysisThreads = analysisThreads;
+    }
+
+    /**
+     * Sets which hk2-locator files, among those in META-INF/hk2-locator/ of
+     * the module and of its class path, are read for inhabitants.  Each JAR
+     * is read once per build, so for the class path the first module to
+     * read a JAR decides.
+     *
+     * @param includes names of the files to read; "*" for all
+     * @param excludes names of the files not to read, even if included
+     */
+    void setLocators(final Collection<String> includes, final Collection<String> excludes) {
+        this.locatorIncludes = includes;
+        this.locatorExcludes = excludes;
+    }
+
+    private boolean isLocatorIncluded(final String locatorName) {
+        return (locatorIncludes.contains(ALL_LOCATORS) || locatorIncludes.contains(locatorName))
+                && ! locatorExcludes.contains(locatorName);
+    }
+
+    /**
+     * Sets whether only the verdict for each command matters: whether it
+     * provides or inherits authorization.  A verdict-only analysis collects no
+     * @Param or REST endpoint details, so its results are kept apart from
+     * those of full analyses run elsewhere in the reactor.
+     *
+     * @param isVerdictOnly true to collect only what the verdict needs
+     */
+    void setVerdictOnly(final boolean isVerdictOnly) {
+        this.isVerdictOnly = isVerdictOnly;
+    }
+
+    /**
+     * Sets the packages whose classes are known not to be commands and are
+     * never analyzed.  Walks up a class's ancestry stop at the first class in
+     * one of these packages (or their subpackages) instead of continuing to
+     * java.lang.Object.
+     *
+     * @param packageNames dotted package names, such as "java" or "org.glassfish.hk2"
+     */
+    void setTerminalPackages(final Collection<String> packageNames) {
+        final List<String> prefixes = new ArrayList<>();
+        for (String packageName : packageNames) {
+            prefixes.add(packageName.replace('.', '/') + '/');
+        }
+        terminalPackagePrefixes = prefixes;
+    }
+
+    /**
+     * Sets the engine which parses the class files of types to be analyzed.
+     *
+     * @param engine the analysis engine
+     */
+    void setEngine(final AnalysisEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Runs every class read through each of the specified engines as well,
+     * comparing their timing and results.  The benchmark is shared by the
+     * whole reactor; the first module to ask for one decides the engines.
+     *
+     * @param engines the engines to compare, the reference engine first
+     */
+    void setBenchmarkEngines(final List<AnalysisEngine> engines) {
+        benchmark = getOrCreate(BENCHMARK_NAME, () -> new EngineBenchmark(engines));
+    }
+
+    /**
+     * @return the reactor-wide engine benchmark; null if none was requested
+     */
+    EngineBenchmark benchmark() {
+        return benchmark;
+    }
+
+    /**
+     * @return the reactor-wide check of locator parsing against hk2's; null if none was requested
+     */
+    LocatorVerification verification() {
+        return verification;
+    }
+
+    private Log getLog() {
+        return mojo.getLog();
     }
 
     @Override
@@ -212,110 +437,115 @@ public class TypeProcessorImpl implements TypeProcessor {
 
         /*
          * Set up a class loader that knows about this project's dependencies.
-         * We don't actually load classes; we use the loader's getResourceAsStream
-         * to get a class's byte code for analysis.
+         * We don't actually load classes.  Byte code comes from the reactor-wide
+         * class file index; the loader's getResourceAsStream covers only what the
+         * index does not, such as the platform classes.
          */
-        loader = createClassLoader();
+        final List<File> classPathElements = runtimeClasspathElements();
+        loader = createClassLoader(classPathElements);
         try {
-            loadConfigBeans();
-        } catch (Exception ex) {
-            throw new MojoExecutionException("Error loading config beans", ex);
+            classPath = getClassFileIndex().classPath(classPathElements);
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Error indexing class path", ex);
         }
-
         final Collection<Inhabitant> inhabitants;
         try {
             inhabitants = findInhabitantsInModule();
         } catch (IOException ex) {
             throw new MojoExecutionException("Error searching inhabitants for commands", ex);
         }
-        final Collection<Inhabitant> commandInhabitants = findCommandInhabitants(inhabitants);
+        final List<Inhabitant> commandInhabitants = new ArrayList<>(findCommandInhabitants(inhabitants));
+        final Set<String> knownBefore = new HashSet<>();
         for (Inhabitant i : commandInhabitants) {
-            authInfosThisModule.add(processType(i));
+            if (knownCommandTypes.containsKey(i.className) || knownNonCommandTypes.contains(i.className)) {
+                knownBefore.add(i.className);
+            }
         }
+        final List<CommandAuthorizationInfo> authInfos = processTypes(commandInhabitants);
+        authInfosThisModule.addAll(authInfos);
+        judge(commandInhabitants, authInfos, knownBefore);
 
         if (trace != null) {
             getLog().debug(trace.toString());
         }
+        getLog().debug(statistics.toString());
     }
 
+    /*
+     * Reading and parsing the locator files of the class path elements, and
+     * reading the class headers that place their config beans, are
+     * independent of each other, so they run in parallel.  The config bean
+     * graph is then built from the parsed descriptors one element at a time,
+     * in class path order, so it comes out exactly as a serial load would
+     * build it.
+     */
     private void loadConfigBeans() throws MalformedURLException, IOException {
-        for (URL url : loader.getURLs()) {
-            if ( ! jarsProcessedForConfigBeans.contains(url)) {
-                getLog().debug("Starting to load configBeans from " + url.toExternalForm());
-                loadConfigBeansFromJar(url);
-                jarsProcessedForConfigBeans.add(url);
+        final List<ClassFileIndex.Element> elements = new ArrayList<>();
+        final List<URL> urls = new ArrayList<>();
+        for (ClassFileIndex.Element element : classPath.elements()) {
+            final URL url = element.file().toURI().toURL();
+            if ( ! jarsProcessedForConfigBeans.contains(url) && ! urls.contains(url)) {
+                elements.add(element);
+                urls.add(url);
             }
         }
+        final List<List<LocatorParser.Entry>> parsed;
+        try {
+            parsed = elements.parallelStream()
+                    .map(this::parseLocators)
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        for (int i = 0; i < elements.size(); i++) {
+            getLog().debug("Starting to load configBeans from " + urls.get(i).toExternalForm());
+            /*
+             * As a side effect, findInhabitantsInModule adds the config beans
+             * in the element's locator files to configBeans.
+             */
+            findInhabitantsInModule(parsed.get(i));
+            jarsProcessedForConfigBeans.add(urls.get(i));
+        }
     }
 
-    private void loadConfigBeansFromJar(final URL url) throws MalformedURLException, IOException {
-        for (String inhabitantsPath : INHABITANTS_PATHS) {
-            final String fullPath = INHABITANTS_PATHS_PREFIX + inhabitantsPath;
-            final String fullURL;
-            final URL inhabitantsURL;
-            if (url.getPath().endsWith(".jar")) {
-                fullURL = "jar:file:" + url.getPath() + "!/" + fullPath;
-                inhabitantsURL = new URL(fullURL);
-            } else {
-                fullURL = fullPath;
-                inhabitantsURL = new URL(url, fullURL);
+    /*
+     * Parses the element's included locator files, in name order, into one
+     * list.  The class file index listed the JAR's locator files when it
+     * indexed the JAR, so only files which exist are opened, through the
+     * index's already open JAR.  The config beans' parents named by their
+     * byte code are looked up here too, so building the graph later finds
+     * them cached.
+     */
+    private List<LocatorParser.Entry> parseLocators(final ClassFileIndex.Element element) {
+        try {
+            List<LocatorParser.Entry> result = Collections.emptyList();
+            for (String locatorName : element.locatorNames()) {
+                if (isLocatorIncluded(locatorName)) {
+                    final List<LocatorParser.Entry> entries = parseLocator(element.readLocator(locatorName),
+                            element.locatorSource(locatorName));
+                    if (result.isEmpty()) {
+                        result = entries;
+                    } else {
+                        /*
+                         * The verification may still be reading the first
+                         * file's list, so it is not extended in place.
+                         */
+                        result = new ArrayList<>(result);
+                        result.addAll(entries);
+                    }
+                }
             }
-
-            try {
-                loadConfigBeans(url, inhabitantsURL);
-            } catch (FileNotFoundException ex) {
-                // This must means that the JAR does not contain an inhabitants file.  Continue.
-                continue;
+            for (LocatorParser.Entry entry : result) {
+                if (entry.target != null) {
+                    getParentNameFromByteCode(entry.target);
+                }
             }
+            return result;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
         }
     }
 
-    private void loadConfigBeans(final URL url, final URL inhabitantsURL) throws IOException {
-        /*
-         * As a side effect, findInhabitantsInModule adds config beans in the
-         * specified input to configBeans.
-         */
-        final List<Inhabitant> inhabitants;
-        try (BufferedReader reader = new BufferedReader(
-            new InputStreamReader(new BufferedInputStream(inhabitantsURL.openStream()), UTF_8))) {
-            inhabitants = findInhabitantsInModule(reader);
-        }
-        if (!isCheckAPIvsParse) {
-            return;
-        }
-        Map<String, Inhabitant> preBeans = new HashMap<>(configBeans);
-        Set<Inhabitant> beansAddedByNew = new HashSet<>(configBeans.values());
-        beansAddedByNew.removeAll(preBeans.values());
-
-        final List<Inhabitant> old;
-        try (InputStreamReader reader = new InputStreamReader(new BufferedInputStream(inhabitantsURL.openStream()), UTF_8)) {
-            old = findInhabitantsInModule(reader);
-        }
-        Set<Inhabitant> beansAddedByOld = new HashSet<>(configBeans.values());
-        beansAddedByOld.removeAll(preBeans.values());
-        if (beansAddedByOld.equals(beansAddedByNew)) {
-            getLog().info("ConfigBeans match for file " + url.toExternalForm());
-        } else {
-            Set<Inhabitant> beansAddedByNewNotOld = beansAddedByNew;
-            beansAddedByNewNotOld.removeAll(beansAddedByOld);
-            Set<Inhabitant> beansAddedByOldNotNew = beansAddedByOld;
-            beansAddedByOldNotNew.removeAll(beansAddedByNew);
-            throw new RuntimeException("Beans added mismatch for URL " + url.toExternalForm()
-                + "\n  added by new not old: " + beansAddedByNewNotOld.toString() + "\n  added by old not new: "
-                + beansAddedByOldNotNew.toString());
-        }
-        if (old.equals(inhabitants)) {
-            return;
-        }
-        Set<Inhabitant> inNewerNotInOld = new HashSet<>(inhabitants);
-        inNewerNotInOld.removeAll(old);
-        Set<Inhabitant> inOldNotInNewer = new HashSet<>(old);
-        inOldNotInNewer.removeAll(inhabitants);
-        throw new RuntimeException(
-            "Inhabitants mismatch for file " + inhabitantsURL.toExternalForm() + "\n  extra in old: "
-                + inOldNotInNewer.toString() + "\n  extra in new: " + inNewerNotInOld.toString());
-    }
-
     @Override
     public Collection<CommandAuthorizationInfo> authInfosThisModule() {
         return authInfosThisModule;
@@ -342,6 +572,56 @@ public class TypeProcessorImpl implements TypeProcessor {
     }
 
 
+    /*
+     * Analyzes the command inhabitants, in parallel unless tracing, and
+     * returns their results in the same order.  Commands sharing an ancestor
+     * wait for a single analysis of it.  If several fail, the first in order
+     * is reported.
+     */
+    private List<CommandAuthorizationInfo> processTypes(final List<Inhabitant> commandInhabitants)
+            throws MojoFailureException, MojoExecutionException {
+        final List<CommandAuthorizationInfo> result = new ArrayList<>(commandInhabitants.size());
+        final int threads = Math.min(analysisThreads, commandInhabitants.size());
+        if (trace != null || threads <= 1) {
+            for (Inhabitant i : commandInhabitants) {
+                result.add(processType(i));
+            }
+            return result;
+        }
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            final List<Future<CommandAuthorizationInfo>> analyses = new ArrayList<>(commandInhabitants.size());
+            for (Inhabitant i : commandInhabitants) {
+                analyses.add(pool.submit(() -> processType(i)));
+            }
+            for (Future<CommandAuthorizationInfo> analysis : analyses) {
+                try {
+                    result.add(analysis.get());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new MojoExecutionException("Interrupted analyzing commands", ex);
+                } catch (ExecutionException ex) {
+                    /*
+                     * The pool wraps what a task throws in plain RuntimeExceptions.
+                     */
+                    Throwable cause = ex.getCause();
+                    while (cause.getClass() == RuntimeException.class && cause.getCause() != null) {
+                        cause = cause.getCause();
+                    }
+                    if (cause instanceof MojoExecutionException) {
+                        throw (MojoExecutionException) cause;
+                    } else if (cause instanceof MojoFailureException) {
+                        throw (MojoFailureException) cause;
+                    }
+                    throw new MojoExecutionException("Error analyzing commands", cause);
+                }
+            }
+            return result;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
     private CommandAuthorizationInfo processType(final Inhabitant i) throws MojoFailureException, MojoExecutionException {
         /*
          * If this inhabitant is generated as a CRUD command then we do not
@@ -349,13 +629,23 @@ public class TypeProcessorImpl implements TypeProcessor {
          * present in the inhabitant data.
          */
         if ( ! GENERIC_CRUD_COMMAND_CLASS_NAMES.contains(i.className)) {
-            return processType(i.className, true);
+            return processType(i.className);
+        }
+        /*
+         * The generic command's path runs through config beans declared
+         * anywhere on the class path.
+         */
+        try {
+            configBeans();
+        } catch (UncheckedIOException ex) {
+            throw new MojoExecutionException(ex.getMessage(), ex.getCause());
         }
         final CommandAuthorizationInfo info = new CommandAuthorizationInfo();
-        final Param primary = new Param("name", "");
-        primary.addValue("primary", Boolean.TRUE);
-
-        info.addParam(primary);
+        if ( ! isVerdictOnly) {
+            final Param primary = new Param("name", "");
+            primary.addValue("primary", Boolean.TRUE);
+            info.addParam(primary);
+        }
         info.setName(i.serviceName);
         info.setClassName(i.className);
         info.setLocal(false);
@@ -363,14 +653,25 @@ public class TypeProcessorImpl implements TypeProcessor {
         return info;
     }
 
-    private CommandAuthorizationInfo processType(final String internalClassName, final boolean isInhabitant) throws MojoExecutionException, MojoFailureException {
+    /*
+     * Processes an inhabitant's class, analyzing its byte code and that of its
+     * ancestors to see if it is a command and, if so, checking for
+     * authorization-related annos and interface implementations, finally
+     * recording whether each is a known command or a known non-command (to
+     * speed up analysis of other types that might refer to them).  Returns
+     * the command authorization info if the class is a command, null
+     * otherwise.
+     */
+    private CommandAuthorizationInfo processType(final String internalClassName) throws MojoExecutionException, MojoFailureException {
         /*
-         * If we have already processed this type, use the earlier result if it
-         * is a command and if it is not a command, return null immediately.
+         * If we have already processed this type, or another thread is
+         * processing it now, use that result if it is a command and if it is
+         * not a command, return null immediately.
          */
-        if (knownCommandTypes.containsKey(internalClassName)) {
+        final CompletableFuture<CommandAuthorizationInfo> known = knownCommandTypes.get(internalClassName);
+        if (known != null) {
             getLog().debug("Recognized previously-IDd class as command: " + internalClassName);
-            return knownCommandTypes.get(internalClassName);
+            return result(known);
         }
         if (knownNonCommandTypes.contains(internalClassName)) {
             getLog().debug("Recognized previously-IDd class as non-command: " + internalClassName);
@@ -378,69 +679,519 @@ public class TypeProcessorImpl implements TypeProcessor {
         }
 
         /*
-         * Find the byte code for this class so we can analyze it.
+         * Walk up the ancestry, claiming each class not already known by
+         * publishing a future for it, and reading it if it is not already in
+         * the class hierarchy, until reaching an ancestor whose result is
+         * known or which another thread is analyzing.  Wait for that one
+         * ancestor, then link the chain from the top down so each class's
+         * info can refer to its parent's, completing each class's future as
+         * it is linked.  Only one class file is open at a time, and each
+         * class is analyzed once even if several threads reach it.
          */
-        final String resourcePath = internalClassName.replace('.','/') + ".class";
-        final InputStream is = loader.getResourceAsStream(resourcePath);
-        if (is == null) {
-            throw new MojoFailureException("Cannot locate byte code for inhabitant class " + resourcePath);
-        }
+        final List<ClassHierarchy.Node> chain = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        final List<CompletableFuture<CommandAuthorizationInfo>> analyses = new ArrayList<>();
         try {
-            final TypeAnalyzer typeAnalyzer = new TypeAnalyzer(is, knownCommandTypes, this);
-            typeAnalyzer.setTrace(trace);
-            typeAnalyzer.run();
-            if (trace != null) {
-                getLog().debug(trace.toString());
-                trace = new StringBuilder();
-            }
-            final CommandAuthorizationInfo authInfo = typeAnalyzer.commandAuthInfo();
-            if (authInfo != null) {
-                if (trace != null) {
-                    trace.append(LINE_SEP).append("Adding ").append(internalClassName).append(" to knownCommandTypes");
+            CompletableFuture<CommandAuthorizationInfo> ancestor = null;
+            String className = internalClassName;
+            do {
+                final CompletableFuture<CommandAuthorizationInfo> analysis = new CompletableFuture<>();
+                ancestor = knownCommandTypes.putIfAbsent(symbols.intern(className), analysis);
+                if (ancestor != null) {
+                    break;
+                }
+                names.add(className);
+                analyses.add(analysis);
+                final ClassHierarchy.Node node = node(className);
+                if (node == null) {
+                    final MojoFailureException ex = new MojoFailureException("Cannot locate byte code for inhabitant class "
+                            + className.replace('.', '/') + ".class");
+                    if (chain.isEmpty()) {
+                        throw ex;
+                    }
+                    throw new MojoExecutionException("Error analyzing " + names.get(chain.size() - 1), ex);
+                }
+                chain.add(node);
+                className = node.superName();
+            } while (className != null && ! isNonCommand(className));
+
+            if (ancestor != null) {
+                if (chain.isEmpty()) {
+                    /*
+                     * Another thread claimed the class itself since it was
+                     * looked up above.
+                     */
+                    return result(ancestor);
                 }
-                knownCommandTypes.put(internalClassName, authInfo);
-            } else {
+                try {
+                    result(ancestor);
+                } catch (MojoFailureException ex) {
+                    throw new MojoExecutionException("Error analyzing " + names.get(chain.size() - 1), ex);
+                }
+            }
+            for (int i = chain.size() - 1; i >= 0; i--) {
+                link(chain.get(i));
                 if (trace != null) {
-                    trace.append(LINE_SEP).append("Adding ").append(internalClassName).append(" to knownNonCommandTypes");
+                    trace.append(LINE_SEP).append("Adding ").append(names.get(i)).append(" to knownCommandTypes");
                 }
-                knownNonCommandTypes.add(internalClassName);
+                analyses.get(i).complete(chain.get(i).info());
             }
+            return chain.get(0).info();
+        } catch (MojoExecutionException | MojoFailureException | RuntimeException ex) {
             /*
-                * Log our decision about whether this class is OK only if this
-                * is an inhabitant.  (This method might have been invoked to analyze a
-                * superclass, and if the superclass was not listed as an
-                * inhabitant we don't need to report whether it has authorization
-                * info or not).
-                */
-            if (isInhabitant) {
+             * Let a later request try again, as it would have before.
+             */
+            for (int i = 0; i < analyses.size(); i++) {
+                if ( ! analyses.get(i).isDone()) {
+                    knownCommandTypes.remove(names.get(i), analyses.get(i));
+                    analyses.get(i).completeExceptionally(ex);
+                }
+            }
+            throw ex;
+        }
+    }
+
+    /*
+     * Reports whether an ancestor is known not to be a command, treating
+     * classes in terminal packages as known non-commands.
+     */
+    private boolean isNonCommand(final String internalClassName) {
+        if (knownNonCommandTypes.contains(internalClassName)) {
+            return true;
+        }
+        if (isInTerminalPackage(internalClassName)) {
+            markTerminal(internalClassName);
+            return true;
+        }
+        return false;
+    }
+
+    private static CommandAuthorizationInfo result(final CompletableFuture<CommandAuthorizationInfo> analysis)
+            throws MojoExecutionException, MojoFailureException {
+        try {
+            return analysis.join();
+        } catch (CompletionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof MojoExecutionException) {
+                throw (MojoExecutionException) cause;
+            } else if (cause instanceof MojoFailureException) {
+                throw (MojoFailureException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw ex;
+        }
+    }
+
+    /*
+     * Records whether each inhabitant provides or inherits authorization, in
+     * inhabitant order.  As when the commands were analyzed one at a time, an
+     * inhabitant is reported only if it was not already known: not before this
+     * module and not as an ancestor, or a repeat, of an earlier inhabitant.
+     */
+    private void judge(final List<Inhabitant> commandInhabitants, final List<CommandAuthorizationInfo> authInfos,
+            final Set<String> knownBefore) {
+        final Set<String> knownEarlier = new HashSet<>();
+        for (int k = 0; k < commandInhabitants.size(); k++) {
+            final String className = commandInhabitants.get(k).className;
+            if (GENERIC_CRUD_COMMAND_CLASS_NAMES.contains(className)) {
+                continue;
+            }
+            if ( ! knownBefore.contains(className) && ! knownEarlier.contains(className)
+                    && knownCommandTypes.containsKey(className)) {
+                final CommandAuthorizationInfo authInfo = authInfos.get(k);
                 if ((authInfo == null) || ! authInfo.isOKDeep()) {
-                    offendingClassNames.add(internalClassName);
+                    offendingClassNames.add(className);
                 } else {
                     if (okClassNames != null) {
-                        okClassNames.add(internalClassName);
+                        okClassNames.add(className);
                     }
                 }
             }
-            return typeAnalyzer.commandAuthInfo();
+            for (String name = className; name != null && knownCommandTypes.containsKey(name); ) {
+                knownEarlier.add(name);
+                final ClassHierarchy.Node node = hierarchy.get(symbols.internalName(name));
+                name = (node == null ? null : node.superName());
+            }
+        }
+    }
+
+    private void markTerminal(final String internalClassName) {
+        if (trace != null) {
+            trace.append(LINE_SEP).append("Adding ").append(internalClassName).append(" to knownNonCommandTypes without analysis; its package is terminal");
+        }
+        knownNonCommandTypes.add(symbols.intern(internalClassName));
+        statistics.classesInTerminalPackages.incrementAndGet();
+    }
+
+    /**
+     * Returns the class hierarchy node for a class, reading and analyzing the
+     * class's own byte code if no module has done so yet.
+     *
+     * @param className name of the class, dotted or slash-separated
+     * @return the class's node; null if the class's byte code cannot be found
+     */
+    private ClassHierarchy.Node node(final String className) throws MojoExecutionException {
+        final String internalClassName = symbols.internalName(className);
+        final ClassHierarchy.Node node = hierarchy.get(internalClassName);
+        if (node != null && node.isAnalyzed()) {
+            return node;
+        }
+
+        /*
+         * Use what the command security index written at compile time records
+         * about the class if there is one, then what the JAR's Jandex index
+         * records, or the JAR's summary if that shows the class does not
+         * matter.  Otherwise find the byte code for this class so we can
+         * analyze it.
+         */
+        final CommandSecurityIndex.IndexedCommand indexedCommand = indexedCommand(internalClassName);
+        final ClassInfo indexedClass = (indexedCommand == null ? jandexClass(internalClassName) : null);
+        ClassSummaryIndex.Summary summary = null;
+        if (indexedCommand == null && indexedClass == null && isPrefilterEnabled) {
+            try {
+                summary = summary(internalClassName);
+            } catch (IOException ex) {
+                throw new MojoExecutionException("Error summarizing the JAR containing " + internalClassName, ex);
+            }
+            if (summary != null && TypeAnalyzer.isRelevant(summary, isVerdictOnly)) {
+                summary = null;
+            }
+        }
+        final ClassFileBuffer classBuffer;
+        if (indexedCommand != null || indexedClass != null || summary != null) {
+            classBuffer = null;
+        } else {
+            final String resourcePath = internalClassName + ".class";
+            classBuffer = ClassFileBuffer.acquire();
+            final boolean isFound;
+            try {
+                isFound = readClassFile(internalClassName, classBuffer);
+            } catch (IOException ex) {
+                classBuffer.release();
+                throw new MojoExecutionException("Error opening byte code for " + resourcePath, ex);
+            }
+            if ( ! isFound) {
+                classBuffer.release();
+                return null;
+            }
+        }
+        try {
+            final TypeAnalyzer typeAnalyzer = (indexedCommand != null
+                    ? new TypeAnalyzer(indexedCommand, this)
+                    : indexedClass != null
+                    ? new TypeAnalyzer(indexedClass, this)
+                    : summary != null
+                    ? new TypeAnalyzer(internalClassName, summary, this)
+                    : new TypeAnalyzer(classBuffer, this));
+            typeAnalyzer.setTrace(trace);
+            typeAnalyzer.setPrefilterEnabled(isPrefilterEnabled);
+            typeAnalyzer.setVerdictOnly(isVerdictOnly);
+            typeAnalyzer.setEngine(engine);
+            typeAnalyzer.setBenchmark(benchmark);
+            typeAnalyzer.run();
+            countAnalysis(internalClassName, typeAnalyzer);
+            if (trace != null) {
+                getLog().debug(trace.toString());
+                trace = new StringBuilder();
+            }
+            /*
+             * A class can implement AdminCommand or AccessCheckProvider through
+             * a super-interface, not just directly.
+             */
+            final BitSet interfaceClosure = hierarchy.interfaceClosure(typeAnalyzer.interfaces(), this::headerNode);
+            final CommandAuthorizationInfo authInfo = typeAnalyzer.commandAuthInfo();
+            if (interfaceClosure.get(hierarchy.interfaceId(ACCESS_CHECK_PROVIDER_INTERNAL_NAME))) {
+                authInfo.isAccessCheckProvider.set(true);
+            }
+            final boolean isCommand = typeAnalyzer.isCommand()
+                    || interfaceClosure.get(hierarchy.interfaceId(ADMIN_COMMAND_INTERNAL_NAME));
+            return hierarchy.add(new ClassHierarchy.Node(internalClassName, symbols.internalName(typeAnalyzer.superName()),
+                    typeAnalyzer.interfaces(), interfaceClosure, authInfo, isCommand));
         } catch (Exception ex) {
-            throw new MojoExecutionException("Error analyzing " + internalClassName, ex);
+            throw new MojoExecutionException("Error analyzing " + className, ex);
+        }
+    }
+
+    /*
+     * Returns the hierarchy node for a type, reading just the type's class file
+     * header if the type has not been read before.  Returns null for types in
+     * terminal packages and for those whose byte code cannot be found.
+     */
+    private ClassHierarchy.Node headerNode(final String internalClassName) {
+        final ClassHierarchy.Node node = hierarchy.get(internalClassName);
+        if (node != null || isInTerminalPackage(internalClassName)) {
+            return node;
+        }
+        /*
+         * Commands analyzed in parallel often share interfaces; read each
+         * header once and let the other threads wait for it.
+         */
+        final CompletableFuture<ClassHierarchy.Node> read = new CompletableFuture<>();
+        final CompletableFuture<ClassHierarchy.Node> inFlight = headerReads.putIfAbsent(internalClassName, read);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException ex) {
+                throw (ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause() : ex);
+            }
+        }
+        try {
+            final ClassHierarchy.Node readNode = hierarchy.get(internalClassName);
+            final ClassHierarchy.Node result = (readNode != null ? readNode : readHeaderNode(internalClassName));
+            read.complete(result);
+            return result;
+        } catch (RuntimeException ex) {
+            read.completeExceptionally(ex);
+            throw ex;
         } finally {
-            if (is != null) {
-                try {
-                    is.close();
-                } catch (IOException ex) {
-                    getLog().warn("Error closing input stream for " + internalClassName + "; " + ex.getLocalizedMessage());
-                }
+            headerReads.remove(internalClassName, read);
+        }
+    }
+
+    private ClassHierarchy.Node readHeaderNode(final String internalClassName) {
+        final ClassInfo indexedClass = jandexClass(internalClassName);
+        if (indexedClass != null) {
+            classSources.putIfAbsent(internalClassName, SOURCE_JANDEX);
+            statistics.classesReadHeaderOnly.incrementAndGet();
+            statistics.classesFromJandex.incrementAndGet();
+            final List<String> interfaces = new ArrayList<>();
+            for (DotName interfaceName : indexedClass.interfaceNames()) {
+                interfaces.add(JandexClassReader.internalName(interfaceName));
+            }
+            return hierarchy.add(new ClassHierarchy.Node(internalClassName,
+                    JandexClassReader.superName(indexedClass), interfaces));
+        }
+        final ClassSummaryIndex.Summary summary;
+        try {
+            summary = summary(internalClassName);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (summary != null) {
+            classSources.putIfAbsent(internalClassName, SOURCE_SUMMARY);
+            statistics.classesReadHeaderOnly.incrementAndGet();
+            statistics.classesFromSummaries.incrementAndGet();
+            return hierarchy.add(new ClassHierarchy.Node(internalClassName, summary.superName(),
+                    summary.interfaces()));
+        }
+        final ClassFileBuffer classBuffer = ClassFileBuffer.acquire();
+        try {
+            if ( ! readClassFile(internalClassName, classBuffer)) {
+                return null;
             }
+            final ClassFileHeader header = new ClassFileHeader(classBuffer.bytes(), 0, classBuffer.length());
+            classSources.putIfAbsent(internalClassName, SOURCE_BYTE_CODE_HEADER);
+            statistics.classesReadHeaderOnly.incrementAndGet();
+            return hierarchy.add(new ClassHierarchy.Node(internalClassName, header.superName(),
+                    Arrays.asList(header.interfaces())));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            classBuffer.release();
         }
+    }
 
+    /*
+     * Returns what a command security index records about a class, if the
+     * class path element which supplies the class has an index covering it
+     * and such indexes are in use.
+     */
+    private CommandSecurityIndex.IndexedCommand indexedCommand(final String internalClassName) {
+        if ( ! isCommandIndexEnabled) {
+            return null;
+        }
+        final ClassFileIndex.Element element = classPath.find(internalClassName);
+        return (element == null ? null : element.indexedCommand(internalClassName));
+    }
+
+    /*
+     * Returns what a Jandex index records about a class, if the JAR which
+     * supplies the class has an index and Jandex indexes are in use.
+     */
+    private ClassInfo jandexClass(final String internalClassName) {
+        if ( ! isJandexEnabled) {
+            return null;
+        }
+        final ClassFileIndex.Element element = classPath.find(internalClassName);
+        return (element == null ? null : element.jandexClass(internalClassName));
+    }
+
+    /*
+     * Returns the summary of a class from the JAR which supplies it, if JARs
+     * are summarized.
+     */
+    private ClassSummaryIndex.Summary summary(final String internalClassName) throws IOException {
+        final ClassFileIndex.Element element = classPath.find(internalClassName);
+        return (element == null ? null : element.summary(internalClassName));
+    }
+
+    /*
+     * Links a class's info to its superclass's.  The superclass must already
+     * be resolved.
+     */
+    private void link(final ClassHierarchy.Node node) {
+        final String superName = node.superName();
+        if (superName == null) {
+            return;
+        }
+        final CompletableFuture<CommandAuthorizationInfo> parentAnalysis = knownCommandTypes.get(superName);
+        final CommandAuthorizationInfo parentInfo = (parentAnalysis == null ? null : parentAnalysis.join());
+        final boolean isParentCommand = (parentAnalysis != null);
+        if (isParentCommand) {
+            if (trace != null) {
+                trace.append(LINE_SEP).
+                        append("  Detected that ").
+                        append(node.name()).
+                        append(" is a command based on its ancestry; check of parent and its ancestry for auth: ").
+                        append(parentInfo.isOKDeep());
+            }
+        } else if ( ! node.isOwnCommand()) {
+            if (trace != null) {
+                trace.append(LINE_SEP).append("  Detected that ").
+                        append(node.name()).
+                        append(" is not a command, even including its ancestry");
+            }
+        }
+        node.info().setParent(parentInfo);
+    }
+
+    /**
+     * Reads the byte code for a class, preferring the class file index and
+     * falling back to the class loader for classes outside the project's class path.
+     *
+     * @param internalClassName internal (slash-separated) name of the class
+     * @param classBuffer the buffer to read into
+     * @return true if the class was read; false if it cannot be found
+     * @throws IOException if the byte code cannot be read
+     */
+    private boolean readClassFile(final String internalClassName, final ClassFileBuffer classBuffer) throws IOException {
+        if (classPath.read(internalClassName, classBuffer)) {
+            return true;
+        }
+        try (InputStream is = loader.getResourceAsStream(internalClassName + ".class")) {
+            if (is == null) {
+                return false;
+            }
+            classBuffer.read(is, -1);
+            return true;
+        }
+    }
+
+    /*
+     * Class names here might be dotted or slash-separated.
+     */
+    private boolean isInTerminalPackage(final String className) {
+        for (String prefix : terminalPackagePrefixes) {
+            if (className.length() > prefix.length() && startsWithIgnoringSeparator(className, prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWithIgnoringSeparator(final String className, final String internalPrefix) {
+        for (int i = 0; i < internalPrefix.length(); i++) {
+            final char c = className.charAt(i);
+            if (c != internalPrefix.charAt(i) && ! (c == '.' && internalPrefix.charAt(i) == '/')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void countAnalysis(final String internalClassName, final TypeAnalyzer typeAnalyzer) {
+        classSources.put(internalClassName, (typeAnalyzer.isFromCommandIndex() ? SOURCE_COMMAND_INDEX
+                : typeAnalyzer.isFromJandexIndex() ? SOURCE_JANDEX
+                : typeAnalyzer.isFromSummary() ? SOURCE_SUMMARY
+                : SOURCE_BYTE_CODE));
+        statistics.classesAnalyzed.incrementAndGet();
+        statistics.parseNanos.addAndGet(typeAnalyzer.parseNanos());
+        if (typeAnalyzer.isPrefiltered()) {
+            statistics.classesPrefiltered.incrementAndGet();
+        }
+        if (typeAnalyzer.isFromCommandIndex()) {
+            statistics.classesFromCommandIndexes.incrementAndGet();
+        }
+        if (typeAnalyzer.isFromJandexIndex()) {
+            statistics.classesFromJandex.incrementAndGet();
+        }
+        if (typeAnalyzer.isFromSummary()) {
+            statistics.classesFromSummaries.incrementAndGet();
+        }
+    }
+
+    /*
+     * The index is shared by every module of the build, which under -T may
+     * analyze at the same time, so it is closed only when the session ends
+     * and no module can still be reading from its JARs.
+     */
+    private ClassFileIndex getClassFileIndex() {
+        return getOrCreate(CLASS_FILE_INDEX_NAME, () -> {
+            final ClassFileIndex index = new ClassFileIndex(isSummaryEnabled, summaryCacheDir,
+                    TypeAnalyzer.SUMMARIZED_NAMES, statistics, getLog());
+            if ( ! SessionEndHook.install(session, () -> closeClassFileIndex(index))) {
+                getLog().debug("No Maven session; class path JARs stay open until the JVM exits");
+            }
+            return index;
+        });
+    }
+
+    /*
+     * Closes the JARs the index holds open and drops it, so a later build in
+     * the same JVM starts afresh.
+     */
+    private void closeClassFileIndex(final ClassFileIndex index) {
+        synchronized (getSessionProperties()) {
+            getSessionProperties().remove(CLASS_FILE_INDEX_NAME, index);
+        }
+        try {
+            index.close();
+        } catch (IOException ex) {
+            getLog().warn("Unable to close class path JARs", ex);
+        }
     }
 
     private void setUpKnownTypes() {
-        knownCommandTypes = getOrCreate(KNOWN_AUTH_TYPES_NAME, knownCommandTypes);
-        knownNonCommandTypes = getOrCreate(KNOWN_NONCOMMAND_TYPES_NAME, knownNonCommandTypes);
+        /*
+         * Verdict-only results lack details a full analysis records, so the
+         * two kinds of analysis keep separate command types and hierarchies.
+         */
+        final String profileSuffix = (isVerdictOnly ? VERDICT_ONLY_SUFFIX : "");
+        knownCommandTypes = getOrCreate(KNOWN_AUTH_TYPES_NAME + profileSuffix, ConcurrentHashMap::new);
+        knownNonCommandTypes = getOrCreate(KNOWN_NONCOMMAND_TYPES_NAME, ConcurrentHashMap::newKeySet);
         jarsProcessedForConfigBeans = getOrCreate(PROCESSED_MODULES_NAME, jarsProcessedForConfigBeans);
         configBeans = getOrCreate(CONFIG_BEANS_NAME, configBeans);
+        statistics = getOrCreate(STATISTICS_NAME, AnalysisStatistics::new);
+        hierarchy = getOrCreate(CLASS_HIERARCHY_NAME + profileSuffix, ClassHierarchy::new);
+        symbols = getOrCreate(SYMBOL_TABLE_NAME, SymbolTable::new);
+        configBeanGraph = getOrCreate(CONFIG_BEAN_GRAPH_NAME, () -> {
+            /*
+             * Beans extending one of the extension interfaces get the
+             * interface as parent, so the interfaces count as declared.
+             */
+            final ConfigBeanGraph graph = new ConfigBeanGraph(symbols);
+            for (String extensionName : EXTENSION_INTERNAL_NAMES) {
+                graph.declare(graph.node(extensionName));
+            }
+            return graph;
+        });
+        parentNamesFromByteCode = getOrCreate(PARENT_NAMES_FROM_BYTE_CODE_NAME, ConcurrentHashMap::new);
+        if (isCheckAPIvsParse) {
+            verification = getOrCreate(LOCATOR_VERIFICATION_NAME, LocatorVerification::new);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getOrCreate(final String propertyName, final Supplier<T> factory) {
+        synchronized (getSessionProperties()) {
+            T result = (T) getSessionProperties().get(propertyName);
+            if (result == null) {
+                result = factory.get();
+                getSessionProperties().put(propertyName, result);
+            }
+            return result;
+        }
     }
 
     private <T,U> Map<T,U> getOrCreate(final String propertyName, final Map<T,U> m) {
@@ -479,79 +1230,65 @@ public class TypeProcessorImpl implements TypeProcessor {
     }
 
 
+    /*
+     * The module's config beans and generic commands link into the graph the
+     * class path's config beans form, so if the module declares any the class
+     * path's are loaded first, as they always used to be.  Otherwise which
+     * parent a bean keeps would depend on whether an earlier module happened
+     * to load them.
+     */
     private List<Inhabitant> findInhabitantsInModule() throws IOException {
-        final List<Inhabitant> inhabitants = new ArrayList<Inhabitant>();
-        for (String inhabitantsPath : INHABITANTS_PATHS) {
-            final String fullPath = INHABITANTS_PATHS_PREFIX + inhabitantsPath;
-            final File inhabFile = new File(buildDir, fullPath);
-            inhabitants.addAll(findInhabitantsInModule(inhabFile));
+        final List<LocatorParser.Entry> entries = new ArrayList<>();
+        for (String locatorName : ClassFileIndex.locatorNames(buildDir)) {
+            if (isLocatorIncluded(locatorName)) {
+                final File inhabFile = new File(buildDir, INHABITANTS_PATHS_PREFIX + locatorName);
+                if ( ! inhabFile.canRead()) {
+                    getLog().debug("Cannot read " + inhabFile.getAbsolutePath());
+                    continue;
+                }
+                entries.addAll(parseLocator(Files.readAllBytes(inhabFile.toPath()), inhabFile.getAbsolutePath()));
+            }
         }
-        return inhabitants;
-    }
-
-    private List<Inhabitant> findInhabitantsInModule(final File inhabFile) throws FileNotFoundException, IOException {
-        if (!inhabFile.canRead()) {
-            getLog().debug("Cannot read " + inhabFile.getAbsolutePath());
-            return Collections.emptyList();
+        for (LocatorParser.Entry entry : entries) {
+            if (entry.target != null || entry.methodName != null) {
+                try {
+                    configBeans();
+                } catch (UncheckedIOException ex) {
+                    throw ex.getCause();
+                }
+                break;
+            }
         }
+        return findInhabitantsInModule(entries);
+    }
 
-        final List<Inhabitant> inhabitants;
-        try (BufferedReader reader = new BufferedReader(
-            new InputStreamReader(new BufferedInputStream(new FileInputStream(inhabFile)), UTF_8))) {
-            inhabitants = findInhabitantsInModule(reader);
-        }
-        if (!isCheckAPIvsParse) {
-            return inhabitants;
+    private List<LocatorParser.Entry> parseLocator(final byte[] locator, final String source) throws IOException {
+        final List<LocatorParser.Entry> entries = LocatorParser.parse(locator);
+        if (verification != null) {
+            verification.verify(entries, locator, source);
         }
-        final Map<String,Inhabitant> preBeans = new HashMap<>(configBeans);
-        final List<Inhabitant> old;
-        try (InputStreamReader reader = new InputStreamReader(new BufferedInputStream(new FileInputStream(inhabFile)), UTF_8)) {
-            old = findInhabitantsInModule(reader);
-        }
-        final Set<Inhabitant> beansAddedByOld = new HashSet<>(configBeans.values());
-        beansAddedByOld.removeAll(preBeans.values());
+        return entries;
+    }
 
-        final Set<Inhabitant> beansAddedByNew = new HashSet<>(configBeans.values());
-        beansAddedByNew.removeAll(preBeans.values());
-        if (beansAddedByOld.equals(beansAddedByNew)) {
-            getLog().info("ConfigBeans match for file " + inhabFile.getAbsolutePath());
-        } else {
-            final Set<Inhabitant> beansAddedByNewNotOld = beansAddedByNew;
-            beansAddedByNewNotOld.removeAll(beansAddedByOld);
-            final Set<Inhabitant> beansAddedByOldNotNew = beansAddedByOld;
-            beansAddedByOldNotNew.removeAll(beansAddedByNew);
-            throw new RuntimeException("Beans added mismatch for URL " + inhabFile.getAbsolutePath()
-                + "\n  added by new not old: " + beansAddedByNewNotOld.toString() + "\n  added by old not new: "
-                + beansAddedByOldNotNew.toString());
-        }
-        if (old.equals(inhabitants)) {
-            return inhabitants;
-        }
-        final Set<Inhabitant> inNewerNotInOld = new HashSet<>(inhabitants);
-        inNewerNotInOld.removeAll(old);
-        final Set<Inhabitant> inOldNotInNewer = new HashSet<>(old);
-        inOldNotInNewer.removeAll(inhabitants);
-        throw new RuntimeException(
-            "Inhabitants mismatch for file " + inhabFile.getAbsolutePath() + "\n  extra in old: "
-                + inOldNotInNewer.toString() + "\n  extra in new: " + inNewerNotInOld.toString());
-    }
-
-    private List<Inhabitant> findInhabitantsInModule(final BufferedReader br) throws IOException {
-        final List<Inhabitant> result = new ArrayList<Inhabitant>();
-        DescriptorImpl di;
-        while ((di = new DescriptorImpl()).readObject(br)) {
-            final Inhabitant inhabitant = new Inhabitant(di.getImplementation());
-            inhabitant.contracts = new ArrayList<>(di.getAdvertisedContracts());
-            inhabitant.serviceName = di.getName();
-            inhabitant.methodListActual = getFirstIfAny(di.getMetadata(), "MethodListActual");
-            inhabitant.methodName = getFirstIfAny(di.getMetadata(), "MethodName");
-            inhabitant.parentConfigured = getParentConfigured(di);
+    /*
+     * Turns parsed descriptors into inhabitants, adding any config beans they
+     * describe to configBeans.
+     */
+    private List<Inhabitant> findInhabitantsInModule(final List<LocatorParser.Entry> entries) {
+        final List<Inhabitant> result = new ArrayList<Inhabitant>(entries.size());
+        for (LocatorParser.Entry entry : entries) {
+            final Inhabitant inhabitant = new Inhabitant(entry.implementation);
+            inhabitant.contracts = interned(entry.contracts);
+            inhabitant.serviceName = entry.name;
+            inhabitant.methodListActual = symbols.intern(entry.methodListActual);
+            inhabitant.methodName = entry.methodName;
+            inhabitant.parentConfigured = symbols.intern(getParentConfigured(entry));
             if (inhabitant.methodName != null) {
                 getLog().debug("Recognized generic command " + inhabitant.serviceName);
                 inhabitant.action = genericCommandNameToAction.get(inhabitant.className);
                 Inhabitant configBeanParent = configBeans.get(inhabitant.parentConfigured);
                 if (configBeanParent == null) {
-                    configBeanParent = new Inhabitant(inhabitant.parentConfigured);
+                    configBeanParent = configBeanNamed(inhabitant.parentConfigured);
                     configBeans.put(configBeanParent.className, configBeanParent);
                     getLog().debug("Created parent bean " + configBeanParent.className + " for target bean " + inhabitant.methodListActual);
                 } else {
@@ -560,30 +1297,30 @@ public class TypeProcessorImpl implements TypeProcessor {
 
                 Inhabitant configBean = configBeans.get(inhabitant.methodListActual);
                 if (configBean == null) {
-                    configBean = new Inhabitant(inhabitant.methodListActual);
+                    configBean = configBeanNamed(inhabitant.methodListActual);
                     configBeans.put(configBean.className, configBean);
                     getLog().debug("Created new config bean for " + configBean.className);
                 } else {
                     getLog().debug("Found existing config bean for " + configBean.className);
                 }
-                configBean.parent = configBeanParent;
+                configBean.linkParent(configBeanParent);
                 inhabitant.configBeanForCommand = configBean;
             }
-            final List<String> targets = di.getMetadata().get("target");
-            if (targets != null && targets.size() > 0) {
-                final String configBeanClassName = targets.get(0);
+            if (entry.target != null) {
+                final String configBeanClassName = entry.target;
                 getLog().debug("Recognized " + configBeanClassName + " as a config bean");
                 Inhabitant configBean = configBeans.get(configBeanClassName);
                 if (configBean == null) {
-                    configBean = new Inhabitant(configBeanClassName);
+                    configBean = configBeanNamed(configBeanClassName);
                 }
+                configBeanGraph.declare(configBean.node);
                 /*
                  * Handle the parent.
                  */
-                if (configBean.parent == null) {
+                if ( ! configBean.hasParent()) {
                     Inhabitant parent = findParent(configBean);
                     if (parent != null) {
-                        configBean.parent = parent;
+                        configBean.linkParent(parent);
                     }
                 }
                 configBeans.put(configBeanClassName, configBean);
@@ -591,41 +1328,32 @@ public class TypeProcessorImpl implements TypeProcessor {
                 /*
                  * Search for and process child elements.
                  */
-                for (Map.Entry<String,List<String>> entry : di.getMetadata().entrySet()) {
-                    final Matcher m = CONFIG_BEAN_CHILD_NAME_KEY_PATTERN.matcher(entry.getKey());
-                    if (m.matches()) {
-                        /*
-                         * Group 1 (from the key) is the child name and the first
-                         * part of the value is the child type which might have
-                         * the prefix "collection:".
-                         */
-                        String childClassName = entry.getValue().get(0);
-                        String subpathInParent = m.group(1);
-                        final boolean isCollection = childClassName.startsWith("collection:");
-                        if (isCollection) {
-                            childClassName = childClassName.substring("collection:".length());
-                        }
-                        getLog().debug("Identified " + childClassName + " as child " + (isCollection ? "collection " : "") + subpathInParent + " of " + configBean.className);
-                        Inhabitant childInh = configBeans.get(childClassName);
-                        if (childInh == null) {
-                            childInh = new Inhabitant(childClassName);
-                            configBeans.put(childClassName, childInh);
-                            getLog().debug("Added child inhabitant to configBeans");
-                        } else {
-                            getLog().debug("Found child as previously-defined config bean");
-                        }
-                        getLog().debug("Assigning " + configBean.className + " as parent of " + childInh.className);
-                        childInh.parent = configBean;
-
-                        if (configBean.children == null) {
-                            configBean.children = new HashMap<String,Child>();
-                        }
-                        Child child = configBean.children.get(childClassName);
-                        if (child == null) {
-                            child = new Child(subpathInParent);
-                            configBean.children.put(childClassName, child);
-                            getLog().debug("Adding config bean " + childClassName + " as child " + subpathInParent + " to config bean " + configBean.className);
-                        }
+                for (int c = 0; c < entry.childNames.size(); c++) {
+                    /*
+                     * The child name comes from the key and the child type,
+                     * which might have the prefix "collection:", from the
+                     * value.
+                     */
+                    String childClassName = entry.childTypes.get(c);
+                    String subpathInParent = entry.childNames.get(c);
+                    final boolean isCollection = childClassName.startsWith("collection:");
+                    if (isCollection) {
+                        childClassName = childClassName.substring("collection:".length());
+                    }
+                    getLog().debug("Identified " + childClassName + " as child " + (isCollection ? "collection " : "") + subpathInParent + " of " + configBean.className);
+                    Inhabitant childInh = configBeans.get(childClassName);
+                    if (childInh == null) {
+                        childInh = configBeanNamed(childClassName);
+                        configBeans.put(childClassName, childInh);
+                        getLog().debug("Added child inhabitant to configBeans");
+                    } else {
+                        getLog().debug("Found child as previously-defined config bean");
+                    }
+                    getLog().debug("Assigning " + configBean.className + " as parent of " + childInh.className);
+                    childInh.linkParent(configBean);
+
+                    if (configBean.addChild(childClassName, subpathInParent)) {
+                        getLog().debug("Adding config bean " + childClassName + " as child " + subpathInParent + " to config bean " + configBean.className);
                     }
                 }
             }
@@ -634,15 +1362,35 @@ public class TypeProcessorImpl implements TypeProcessor {
         return result;
     }
 
+    /*
+     * Returns a copy of the list holding the shared copies of the names; the
+     * list itself may still be read by the locator verification.
+     */
+    private List<String> interned(final List<String> names) {
+        final List<String> result = new ArrayList<>(names.size());
+        for (String name : names) {
+            result.add(symbols.intern(name));
+        }
+        return result;
+    }
+
+    /*
+     * Returns a view of the config bean's node in the config bean graph,
+     * adding the node if there is none.
+     */
+    private Inhabitant configBeanNamed(final String className) {
+        return new Inhabitant(configBeanGraph.node(className));
+    }
+
     private Inhabitant findParent(final Inhabitant cb) {
-        if (cb.parent != null) {
-            return cb.parent;
+        if (cb.hasParent()) {
+            return cb.parent();
         }
         final String parentName = getParentNameFromByteCode(cb.className);
         if (parentName != null) {
             Inhabitant parent = configBeans.get(parentName);
             if (parent == null) {
-                parent = new Inhabitant(parentName);
+                parent = configBeanNamed(parentName);
             }
             configBeans.put(parentName, parent);
             return parent;
@@ -650,225 +1398,70 @@ public class TypeProcessorImpl implements TypeProcessor {
         return null;
     }
 
-    private String getParentConfigured(final DescriptorImpl di) {
-        String parentConfigured = getFirstIfAny(di.getMetadata(), "ParentConfigured");
+    private String getParentConfigured(final LocatorParser.Entry entry) {
+        String parentConfigured = entry.parentConfigured;
         if (parentConfigured == null &&
-                (di.getAdvertisedContracts().contains(CONFIG_BEAN_NAME)
-                 || di.getAdvertisedContracts().contains(CONFIG_BEAN_PROXY_NAME))) {
-            List<String> targets = di.getMetadata().get("target");
-            if (targets != null && targets.size() > 0) {
-                parentConfigured = getParentNameFromByteCode(targets.get(0));
+                (entry.contracts.contains(CONFIG_BEAN_NAME)
+                 || entry.contracts.contains(CONFIG_BEAN_PROXY_NAME))) {
+            if (entry.target != null) {
+                parentConfigured = getParentNameFromByteCode(entry.target);
             }
         }
         return parentConfigured;
     }
 
+    /*
+     * Only the config bean's interfaces matter here, so just its class file
+     * header is read, and the outcome is remembered for the rest of the build.
+     */
     private String getParentNameFromByteCode(final String className) {
+        final String cached = parentNamesFromByteCode.get(className);
+        if (cached != null) {
+            return (cached.isEmpty() ? null : cached);
+        }
         String result = null;
-        InputStream is = null;
-        try {
-            is = loader.getResourceAsStream(className.replace('.', '/') + ".class");
-            if (is == null) {
-                return null;
-            }
-            final TypeAnalyzer ta = new TypeAnalyzer(is, knownCommandTypes, this);
-            ta.run();
+        final ClassHierarchy.Node node = headerNode(symbols.internalName(className));
+        if (node != null) {
             /*
              * If the bean extends one of the xxxExtension interfaces then
              * make the xxx this bean's parent.
              */
             for (String extensionName : EXTENSION_INTERNAL_NAMES) {
-                if (ta.interfaces().contains(extensionName)) {
+                if (node.interfaces().contains(extensionName)) {
                     Type t = Type.getObjectType(extensionName);
-                    return t.getClassName();
+                    result = symbols.dottedName(t.getClassName());
+                    break;
                 }
             }
-            return result;
-        } catch (Exception ex) {
-            throw new RuntimeException(ex);
-        } finally {
-            try {
-                if (is != null) {
-                    is.close();
-                }
-            } catch (IOException ex) {
-                throw new RuntimeException(ex);
-            }
         }
+        parentNamesFromByteCode.put(className, (result == null ? "" : result));
+        return result;
     }
 
-    private String getFirstIfAny(final Map<String,List<String>> map, final String key) {
-        final List<String> values = map.get(key);
-        return values == null || values.isEmpty() ? null : values.get(0);
-    }
-
-    private List<Inhabitant> findInhabitantsInModule(final Reader r) throws IOException {
-
-        /*
-         * Inhabitants files look like this:
-         *
-         * [implementation-class-name]
-         * ...
-         * contract={contract-1-name,constract-2-name,...}
-         * ...
-         * (blank line)
-         * [next-implementation-class-name]
-         * ...
-         */
-
-        final List<Inhabitant> result = new ArrayList<Inhabitant>();
-
-        final LineNumberReader rdr = new LineNumberReader(r);
-
-        String line;
-
-        String implClassName;
-
-        /*
-         * This Inhabitant accumulates information from several successive
-         * lines in the hk2 inhabitants file.  Once we detect the end of this
-         * inhabitants info - either a blank line or the end of the file -
-         * we process this inhabitant.
-         */
-        Inhabitant inhabitant = null;
-
-        while ((line = rdr.readLine()) != null) {
-            final int commentSlot = line.indexOf('#');
-            if (commentSlot != -1) {
-                line = line.substring(0, commentSlot);
-            }
-            line = line.trim();
-            if (line.isEmpty()) {
-                inhabitant = null;
-                continue;
-            }
-
-            final Matcher implClassNameMatcher = INHABITANT_IMPL_CLASS_PATTERN.matcher(line);
-            if (implClassNameMatcher.matches()) {
-                implClassName = implClassNameMatcher.group(1);
-                getLog().debug("Detected start of inhabitant: " + implClassName);
-
-                inhabitant = new Inhabitant(implClassName);
-                result.add(inhabitant);
-            } else {
-                final Matcher contractsMatcher = INHABITANT_CONTRACTS_PATTERN.matcher(line);
-                if (contractsMatcher.matches()) {
-                    inhabitant.contracts.addAll(Arrays.asList(contractsMatcher.group(1).split(",")));
-                } else {
-                    final Matcher nameMatcher = INHABITANT_NAME_PATTERN.matcher(line);
-                    if (nameMatcher.matches()) {
-                        inhabitant.serviceName = nameMatcher.group(1);
-                    } else {
-                        if (GENERIC_CRUD_COMMAND_CLASS_NAMES.contains(inhabitant.className)) {
-                            final Matcher genericInfoMatcher = GENERIC_COMMAND_INFO_PATTERN.matcher(line);
-                            if (genericInfoMatcher.matches()) {
-                                inhabitant.methodListActual = genericInfoMatcher.group(1);
-                                inhabitant.methodName = genericInfoMatcher.group(2);
-                                inhabitant.parentConfigured = genericInfoMatcher.group(3);
-                                getLog().debug("Recognized generic command " + inhabitant.serviceName);
-                                inhabitant.action = genericCommandNameToAction.get(inhabitant.className);
-                                Inhabitant configBeanParent = configBeans.get(inhabitant.parentConfigured);
-                                if (configBeanParent == null) {
-                                    configBeanParent = new Inhabitant(inhabitant.parentConfigured);
-                                    configBeans.put(configBeanParent.className, configBeanParent);
-                                    getLog().debug("Created parent bean " + configBeanParent.className + " for target bean " + inhabitant.methodListActual);
-                                } else {
-                                    getLog().debug("Found parent bean " + configBeanParent.className + " for target bean " + inhabitant.methodListActual);
-                                }
-
-                                Inhabitant configBean = configBeans.get(inhabitant.methodListActual);
-                                if (configBean == null) {
-                                    configBean = new Inhabitant(inhabitant.methodListActual);
-                                    configBeans.put(configBean.className, configBean);
-                                    getLog().debug("Created new config bean for " + configBean.className);
-                                } else {
-                                    getLog().debug("Found existing config bean for " + configBean.className);
-                                }
-                                configBean.parent = configBeanParent;
-                                inhabitant.configBeanForCommand = configBean;
-                            }
-                        }
-                    }
-                }
-            }
-
-            /*
-             * If the previously-found contracts include ConfigInjector then
-             * this is a config bean.  Try matching the config bean metadata.
-             */
-            final Matcher configBeanPrefixMatcher = CONFIG_BEAN_METADATA_PREFIX_PATTERN.matcher(line);
-            if (configBeanPrefixMatcher.matches()) {
-                final String configBeanClassName = configBeanPrefixMatcher.group(1);
-                getLog().debug("Recognized " + configBeanClassName + " as a config bean");
-                Inhabitant configBean = configBeans.get(configBeanClassName);
-                if (configBean == null) {
-                    configBean = new Inhabitant(configBeanClassName);
-                    configBeans.put(configBeanClassName, configBean);
-                }
-
-                /*
-                 * If the prefix has a group 2 then that is the part we
-                 * need to parse for children.
-                 */
-                final String restOfLine = configBeanPrefixMatcher.group(2);
-                if ( restOfLine != null &&
-                    restOfLine.length() > 0) {
-                    final Matcher configBeanChildMatcher =
-                        CONFIG_BEAN_CHILD_PATTERN.matcher(restOfLine);
-                    while (configBeanChildMatcher.find()) {
-                        /*
-                         * Make sure we have group 1.  Otherwise we matched
-                         * one of the variants that we are not interested in
-                         * (such as an attribute declaration).
-                         */
-                        if (configBeanChildMatcher.groupCount() > 0 && configBeanChildMatcher.group(1) != null) {
-                            final String childClassName = configBeanChildMatcher.group(2);
-                            final String subpathInParent = configBeanChildMatcher.group(1);
-                            getLog().debug("Identified " + childClassName + " as child " + subpathInParent + " of " + configBean.className);
-                            Inhabitant childInh = configBeans.get(childClassName);
-                            if (childInh == null) {
-                                childInh = new Inhabitant(childClassName);
-                                configBeans.put(childClassName, childInh);
-                                getLog().debug("Added child inhabitant to configBeans");
-                            } else {
-                                getLog().debug("Found child as previously-defined config bean");
-                            }
-                            getLog().debug("Assigning " + configBean.className + " as parent of " + childInh.className);
-                            childInh.parent = configBean;
-
-                            if (configBean.children == null) {
-                                configBean.children = new HashMap<String,Child>();
-                            }
-                            Child child = configBean.children.get(childClassName);
-                            if (child == null) {
-                                child = new Child(subpathInParent);
-                                configBean.children.put(childClassName, child);
-                                getLog().debug("Adding config bean " + childClassName + " as child " + subpathInParent + " to config bean " + configBean.className);
-                            }
-                        }
-                    }
-                }
+    private List<File> runtimeClasspathElements() throws MojoExecutionException {
+        try {
+            final List<File> result = new ArrayList<>();
+            for (String cpElement : project.getRuntimeClasspathElements()) {
+                result.add(new File(cpElement));
             }
+            return result;
+        } catch (DependencyResolutionRequiredException ex) {
+            throw new MojoExecutionException("Error fetching compile-time classpath", ex);
         }
-        return result;
     }
 
-    private URLClassLoader createClassLoader() throws MojoExecutionException {
-        final List<String> compileClasspathElements;
+    private URLClassLoader createClassLoader(final List<File> classPathElements) throws MojoExecutionException {
         try {
-            compileClasspathElements = project.getRuntimeClasspathElements();
-            final URL[] urls = new URL[compileClasspathElements.size()];
+            final URL[] urls = new URL[classPathElements.size()];
             int urlSlot = 0;
 
-            for (String cpElement : compileClasspathElements) {
+            for (File cpElement : classPathElements) {
                 getLog().debug(" Processing class path element " + cpElement);
-                urls[urlSlot++] = new File(cpElement).toURI().toURL();
+                urls[urlSlot++] = cpElement.toURI().toURL();
             }
 
             return new URLClassLoader(urls);
 
-        } catch (DependencyResolutionRequiredException ex) {
-            throw new MojoExecutionException("Error fetching compile-time classpath", ex);
         } catch (MalformedURLException ex) {
             throw new MojoExecutionException("Error processing class path URL segment", ex);
         }
@@ -902,27 +1495,38 @@ public class TypeProcessorImpl implements TypeProcessor {
 
     }
 
+    /**
+     * An hk2 inhabitant.  An inhabitant standing for a config bean is a view
+     * of the config bean's node in the config bean graph, which holds its
+     * parent and children; views of the same node are equal.
+     */
     public class Inhabitant {
 
         private List<String> contracts = new ArrayList<>();
 
         private boolean isFilledIn = false;
+        private final int node;
         private String className;
         private String serviceName;
         private String methodListActual;
         private String methodName;
         private String parentConfigured;
-        private Inhabitant parent = null;
         private String nameInParent = null;
         private String action;
         private Inhabitant configBeanForCommand = null;
 
-        private Map<String,Child> children = null;
-
-        private Inhabitant() {}
+        private Inhabitant() {
+            this.node = ConfigBeanGraph.NONE;
+        }
 
         private Inhabitant(final String className) {
-            this.className = className;
+            this.node = ConfigBeanGraph.NONE;
+            this.className = symbols.intern(className);
+        }
+
+        private Inhabitant(final int node) {
+            this.node = node;
+            this.className = configBeanGraph.className(node);
         }
 
         private Inhabitant(final String className, final List<String> contracts,
@@ -930,6 +1534,7 @@ public class TypeProcessorImpl implements TypeProcessor {
                 final String methodListActual,
                 final String methodName,
                 final String parentConfigured) {
+            this.node = ConfigBeanGraph.NONE;
             this.className = className;
             this.contracts.addAll(contracts);
             this.serviceName = serviceName;
@@ -940,17 +1545,6 @@ public class TypeProcessorImpl implements TypeProcessor {
             this.isFilledIn = true;
         }
 
-        void setParent(final Inhabitant p) {
-            parent = p;
-            Inhabitant ancestor = this;
-            while (ancestor != null) {
-                if (p == ancestor) {
-                    throw new RuntimeException("Ancestry loop: me=" + toString() + " and candidate parent = " + p.toString());
-                }
-                ancestor = ancestor.parent;
-            }
-        }
-
         void set(final List<String> contracts, final String serviceName,
                 final String methodListActual,
                 final String methodName,
@@ -963,15 +1557,39 @@ public class TypeProcessorImpl implements TypeProcessor {
             isFilledIn = true;
         }
 
+        /*
+         * Sets the config bean's parent without checking for an ancestry
+         * loop; ConfigBeanGraph.analyze checks the whole graph once loading
+         * is done.
+         */
+        void linkParent(final Inhabitant p) {
+            configBeanGraph.setParent(node, (p == null ? ConfigBeanGraph.NONE : p.node));
+        }
+
+        /*
+         * Records a child config bean unless one with the same class is
+         * already recorded.  Returns whether it was added.
+         */
+        boolean addChild(final String childClassName, final String subpathInParent) {
+            return configBeanGraph.addChild(node, configBeanGraph.node(childClassName), subpathInParent);
+        }
+
+        boolean hasParent() {
+            return node != ConfigBeanGraph.NONE && configBeanGraph.parent(node) != ConfigBeanGraph.NONE;
+        }
+
         @Override
         public boolean equals(Object obj) {
             if (obj == null || ! Inhabitant.class.isAssignableFrom(obj.getClass())) {
                 return false;
             }
             final Inhabitant other = (Inhabitant) obj;
+            if (node != ConfigBeanGraph.NONE || other.node != ConfigBeanGraph.NONE) {
+                return node == other.node;
+            }
             return  check(action, other.action) &&
                     check(className, other.className) &&
-                    check(configBeanForCommand, other.configBeanForCommand) &&
+                    nodeOf(configBeanForCommand) == nodeOf(other.configBeanForCommand) &&
                     check(contracts, other.contracts) &&
                     (isFilledIn == other.isFilledIn) &&
                     check(methodListActual, other.methodListActual) &&
@@ -985,6 +1603,9 @@ public class TypeProcessorImpl implements TypeProcessor {
 
         @Override
         public int hashCode() {
+            if (node != ConfigBeanGraph.NONE) {
+                return node;
+            }
             int hash = 7;
             hash = 29 * hash + (this.contracts != null ? this.contracts.hashCode() : 0);
             hash = 29 * hash + (this.isFilledIn ? 1 : 0);
@@ -995,10 +1616,14 @@ public class TypeProcessorImpl implements TypeProcessor {
             hash = 29 * hash + (this.parentConfigured != null ? this.parentConfigured.hashCode() : 0);
             hash = 29 * hash + (this.nameInParent != null ? this.nameInParent.hashCode() : 0);
             hash = 29 * hash + (this.action != null ? this.action.hashCode() : 0);
-            hash = 29 * hash + (this.configBeanForCommand != null ? this.configBeanForCommand.hashCode() : 0);
+            hash = 29 * hash + nodeOf(configBeanForCommand);
             return hash;
         }
 
+        private int nodeOf(final Inhabitant i) {
+            return (i == null ? ConfigBeanGraph.NONE : i.node);
+        }
+
         private boolean check(final Object x, final Object y) {
             return (x == null? y == null : x.equals(y));
         }
@@ -1013,48 +1638,30 @@ public class TypeProcessorImpl implements TypeProcessor {
         }
 
         Inhabitant parent() {
-            return parent;
+            final int parent = (node == ConfigBeanGraph.NONE ? ConfigBeanGraph.NONE : configBeanGraph.parent(node));
+            if (parent == ConfigBeanGraph.NONE) {
+                return null;
+            }
+            final Inhabitant known = configBeans.get(configBeanGraph.className(parent));
+            return (known != null && known.node == parent ? known : new Inhabitant(parent));
         }
 
         String nameInParent() {
             return nameInParent;
         }
 
+        /*
+         * The config bean graph keeps each config bean's path until the
+         * config bean or one above it changes, so commands and views of the
+         * same config bean share it.
+         */
         String fullPath() {
-            final StringBuilder path = new StringBuilder();
-            for (Inhabitant i = (configBeanForCommand != null ? configBeanForCommand : this); i != null; i = i.parent) {
-                if (path.length() > 0 && path.charAt(0) != '/') {
-                    path.insert(0, '/');
-                }
-                final Inhabitant p = i.parent;
-                if (p != null) {
-                    Child childForThisInh = null;
-                    if (p.children != null && ((childForThisInh = p.children.get(i.className)) != null)) {
-                        if (childForThisInh.subpathInParent.equals("*") && path.length() > 0) {
-                            path.replace(0, 0, "");
-                            if (path.substring(0,1).equals("//")) {
-                                path.replace(0, 0, "");
-                            }
-                        } else {
-                            path.insert(0, childForThisInh.subpathInParent);
-                        }
-                    } else {
-                        path.insert(0, Util.convertName(Util.lastPart(i.className)));
-                    }
-                } else {
-                    path.insert(0, Util.convertName(Util.lastPart(i.className)));
-                }
-
+            final int start = (configBeanForCommand != null ? configBeanForCommand.node : node);
+            if (start == ConfigBeanGraph.NONE) {
+                return Util.convertName(Util.lastPart(configBeanForCommand != null
+                        ? configBeanForCommand.className : className));
             }
-            return path.toString();
-        }
-    }
-
-    static class Child {
-        private String subpathInParent;
-
-        Child(final String subpathInParent) {
-            this.subpathInParent = subpathInParent;
+            return configBeanGraph.fullPath(start);
         }
     }
 }
@@ -17,7 +17,8 @@
 
 package org.glassfish.module.maven.commandsecurityplugin;
 
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  *
@@ -25,50 +26,73 @@ import java.util.regex.Pattern;
  */
 public class Util {
 
-    /*
-     * Next block stolen shamelessly from the hk2 config Dom class, pending
-     * a slight refactoring of that code there to expose the part we need.
+    private static final int MAX_CACHED_NAMES = 4096;
+
+    private static final Map<String,String> convertedNames = new ConcurrentHashMap<>();
+
+    /**
+     * Converts a class's simple name to the element name hk2 config derives
+     * from it: the name is split into words, which are lower-cased and joined
+     * with dashes (AbcDef gives abc-def, USArmy us-army and SSL2Connector
+     * ssl2-connector).
+     * <p>
+     * The rules are those of the tokenizer in hk2 config's Dom class, which
+     * splits between a lower-case and an upper-case letter, before an
+     * upper-case letter followed by a lower-case one when an upper-case
+     * letter precedes it, and between a digit and a non-digit.  Letters are
+     * ASCII letters, as in that tokenizer's pattern.
      */
-    static final Pattern TOKENIZER;
-    private static String split(String lookback,String lookahead) {
-        return "((?<="+lookback+")(?="+lookahead+"))";
+    static String convertName(final String name) {
+        String result = convertedNames.get(name);
+        if (result == null) {
+            result = splitAndJoin(name);
+            if (convertedNames.size() < MAX_CACHED_NAMES) {
+                convertedNames.put(name, result);
+            }
+        }
+        return result;
     }
 
-    private static String or(String... tokens) {
-        StringBuilder buf = new StringBuilder();
-        for (String t : tokens) {
-            if(buf.length()>0) {
-                buf.append('|');
+    private static String splitAndJoin(final String name) {
+        final StringBuilder buf = new StringBuilder(name.length() + 5);
+        int start = 0;
+        for (int i = 1; i < name.length(); i++) {
+            if (isWordBoundary(name, i)) {
+                appendWord(buf, name, start, i);
+                start = i;
             }
-            buf.append(t);
         }
+        appendWord(buf, name, start, name.length());
         return buf.toString();
     }
 
-    static {
-        String pattern = or(
-                split("x","X"),     // AbcDef -> Abc|Def
-                split("X","Xx"),    // USArmy -> US|Army
-                //split("\\D","\\d"), // SSL2 -> SSL|2
-                split("\\d","\\D")  // SSL2Connector -> SSL|2|Connector
-        );
-        pattern = pattern.replace("x","\\p{Lower}").replace("X","\\p{Upper}");
-        TOKENIZER = Pattern.compile(pattern);
+    private static boolean isWordBoundary(final String name, final int i) {
+        final char before = name.charAt(i - 1);
+        final char after = name.charAt(i);
+        return (isLower(before) && isUpper(after))
+                || (isUpper(before) && isUpper(after) && i + 1 < name.length() && isLower(name.charAt(i + 1)))
+                || (isDigit(before) && ! isDigit(after));
     }
 
-    static String convertName(final String name) {
-        // tokenize by finding 'x|X' and 'X|Xx' then insert '-'.
-        StringBuilder buf = new StringBuilder(name.length()+5);
-        for(String t : TOKENIZER.split(name)) {
-            if(buf.length()>0) {
-                buf.append('-');
-            }
-            buf.append(t.toLowerCase());
+    private static void appendWord(final StringBuilder buf, final String name, final int start, final int end) {
+        if (buf.length() > 0) {
+            buf.append('-');
         }
-        return buf.toString();
+        buf.append(name.substring(start, end).toLowerCase());
+    }
+
+    private static boolean isLower(final char c) {
+        return c >= 'a' && c <= 'z';
+    }
+
+    private static boolean isUpper(final char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
     }
 
-    /* end of shameless copy */
 
     static String restOpTypeToAction(final String restOpType) {
         if (restOpType.equals("POST")) {
@@ -0,0 +1,467 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compiles sample commands with {@link CommandSecurityIndexProcessor} and
+ * checks that the goals learn the same from the resulting index as from the
+ * commands' byte code, and that they stop trusting an entry once its class
+ * file changes.
+ */
+class CommandSecurityIndexProcessorTest {
+
+    /*
+     * Just enough of the GlassFish and HK2 APIs for the samples to compile.
+     */
+    static final Map<String,String> API = new LinkedHashMap<>();
+    static {
+        API.put("org/jvnet/hk2/annotations/Service",
+                "package org.jvnet.hk2.annotations;\n"
+                + "import java.lang.annotation.*;\n"
+                + "@Retention(RetentionPolicy.RUNTIME) @Target(ElementType.TYPE)\n"
+                + "public @interface Service { String name() default \"\"; }\n");
+        API.put("org/glassfish/api/Param",
+                "package org.glassfish.api;\n"
+                + "import java.lang.annotation.*;\n"
+                + "@Retention(RetentionPolicy.RUNTIME) @Target({ElementType.FIELD, ElementType.METHOD})\n"
+                + "public @interface Param {\n"
+                + "    String name() default \"\"; String acceptableValues() default \"\";\n"
+                + "    boolean optional() default false; String shortName() default \"\";\n"
+                + "    boolean primary() default false; String defaultValue() default \"\";\n"
+                + "    boolean password() default false; char separator() default ',';\n"
+                + "    boolean multiple() default false; boolean obsolete() default false;\n"
+                + "    String alias() default \"\"; Class<?> defaultCalculator() default Object.class;\n"
+                + "}\n");
+        API.put("org/glassfish/api/admin/AdminCommand",
+                "package org.glassfish.api.admin;\n"
+                + "public interface AdminCommand { void execute(Object context); }\n");
+        API.put("org/glassfish/api/admin/AdminCommandSecurity",
+                "package org.glassfish.api.admin;\n"
+                + "public interface AdminCommandSecurity {\n"
+                + "    interface AccessCheckProvider { java.util.Collection<?> getAccessChecks(); }\n"
+                + "}\n");
+        API.put("org/glassfish/api/admin/AccessRequired",
+                "package org.glassfish.api.admin;\n"
+                + "import java.lang.annotation.*;\n"
+                + "@Retention(RetentionPolicy.RUNTIME) @Target(ElementType.TYPE)\n"
+                + "public @interface AccessRequired {\n"
+                + "    String[] resource(); String[] action();\n"
+                + "    @Retention(RetentionPolicy.RUNTIME) @Target(ElementType.TYPE)\n"
+                + "    @interface List { AccessRequired[] value(); }\n"
+                + "    @Retention(RetentionPolicy.RUNTIME) @Target(ElementType.FIELD)\n"
+                + "    @interface To { String[] value(); String collection() default \"\"; }\n"
+                + "    @Retention(RetentionPolicy.RUNTIME) @Target(ElementType.FIELD)\n"
+                + "    @interface NewChild { Class<?> type(); String collection() default \"\";\n"
+                + "        String[] action() default \"create\"; }\n"
+                + "    @Retention(RetentionPolicy.RUNTIME) @Target(ElementType.TYPE)\n"
+                + "    @interface Delegate { Class<?> value(); }\n"
+                + "}\n");
+        API.put("org/glassfish/api/admin/RestParam",
+                "package org.glassfish.api.admin;\n"
+                + "import java.lang.annotation.*;\n"
+                + "@Retention(RetentionPolicy.RUNTIME)\n"
+                + "public @interface RestParam { String name(); String value(); }\n");
+        API.put("org/glassfish/api/admin/RestEndpoint",
+                "package org.glassfish.api.admin;\n"
+                + "import java.lang.annotation.*;\n"
+                + "@Retention(RetentionPolicy.RUNTIME) @Target(ElementType.TYPE)\n"
+                + "public @interface RestEndpoint {\n"
+                + "    enum OpType { GET, PUT, POST, DELETE }\n"
+                + "    Class<?> configBean(); OpType opType() default OpType.GET;\n"
+                + "    String path() default \"\"; String description() default \"\";\n"
+                + "    RestParam[] params() default {}; boolean useForAuthorization() default false;\n"
+                + "}\n");
+        API.put("org/glassfish/api/admin/RestEndpoints",
+                "package org.glassfish.api.admin;\n"
+                + "import java.lang.annotation.*;\n"
+                + "@Retention(RetentionPolicy.RUNTIME) @Target(ElementType.TYPE)\n"
+                + "public @interface RestEndpoints { RestEndpoint[] value(); }\n");
+        API.put("org/glassfish/api/admin/Supplemental",
+                "package org.glassfish.api.admin;\n"
+                + "import java.lang.annotation.*;\n"
+                + "@Retention(RetentionPolicy.RUNTIME) @Target(ElementType.TYPE)\n"
+                + "public @interface Supplemental {\n"
+                + "    String value(); enum Timing { Before, After } Timing on() default Timing.After;\n"
+                + "}\n");
+    }
+
+    /*
+     * Commands whose analysis needs no config beans, so they are compared
+     * down to their CommandAuthorizationInfo.
+     */
+    static final Map<String,String> COMMANDS = new LinkedHashMap<>();
+    static {
+        COMMANDS.put("com/example/admin/CreateWidget",
+                "package com.example.admin;\n"
+                + "import org.glassfish.api.Param;\n"
+                + "import org.glassfish.api.admin.*;\n"
+                + "@org.jvnet.hk2.annotations.Service(name = \"create-widget\")\n"
+                + "@AccessRequired(resource = {\"domain/widgets\", \"domain/gadgets\"}, action = {\"create\", \"update\"})\n"
+                + "public class CreateWidget implements AdminCommand {\n"
+                + "    static final String DEFAULT = \"blue\";\n"
+                + "    @Param(primary = true) private String name;\n"
+                + "    @Param(optional = true, defaultValue = DEFAULT + \"-ish\", acceptableValues = \"blue,red\")\n"
+                + "    String color;\n"
+                + "    @Param(name = \"properties\", separator = ':', optional = true, multiple = true)\n"
+                + "    java.util.Properties props;\n"
+                + "    @Param(optional = true, password = true, alias = \"pw\", shortName = \"p\") char[] password;\n"
+                + "    @Param(optional = true, defaultCalculator = Runnable.class) int count;\n"
+                + "    @Deprecated private String notAParameter;\n"
+                + "    public void execute(Object context) { }\n"
+                + "}\n");
+        COMMANDS.put("com/example/admin/ListWidgets",
+                "package com.example.admin;\n"
+                + "import org.glassfish.api.admin.*;\n"
+                + "@org.jvnet.hk2.annotations.Service(name = \"list-widgets\")\n"
+                + "@AccessRequired.List({\n"
+                + "    @AccessRequired(resource = \"domain/widgets\", action = \"read\"),\n"
+                + "    @AccessRequired(resource = {\"domain/gadgets\"}, action = {\"read\", \"list\"})})\n"
+                + "public class ListWidgets implements AdminCommand {\n"
+                + "    public void execute(Object context) { }\n"
+                + "}\n");
+        COMMANDS.put("com/example/admin/DelegatingCommand",
+                "package com.example.admin;\n"
+                + "import org.glassfish.api.admin.*;\n"
+                + "@org.jvnet.hk2.annotations.Service(name = \"delegating\")\n"
+                + "@AccessRequired.Delegate(CreateWidget.class)\n"
+                + "public class DelegatingCommand implements AdminCommand {\n"
+                + "    public void execute(Object context) { }\n"
+                + "}\n");
+        COMMANDS.put("com/example/admin/RestCommand",
+                "package com.example.admin;\n"
+                + "import org.glassfish.api.admin.*;\n"
+                + "@org.jvnet.hk2.annotations.Service(name = \"rest-command\")\n"
+                + "@RestEndpoints({\n"
+                + "    @RestEndpoint(configBean = CreateWidget.class, opType = RestEndpoint.OpType.POST,\n"
+                + "        path = \"widgets\", description = \"Widgets\", useForAuthorization = true,\n"
+                + "        params = {@RestParam(name = \"id\", value = \"$parent\"), @RestParam(name = \"x\", value = \"y\")}),\n"
+                + "    @RestEndpoint(configBean = ListWidgets.class)})\n"
+                + "@Supplemental(value = \"create-widget\", on = Supplemental.Timing.Before)\n"
+                + "public class RestCommand implements AdminCommand {\n"
+                + "    public void execute(Object context) { }\n"
+                + "}\n");
+        COMMANDS.put("com/example/admin/CheckedCommand",
+                "package com.example.admin;\n"
+                + "import org.glassfish.api.admin.*;\n"
+                + "@org.jvnet.hk2.annotations.Service(name = \"checked\")\n"
+                + "@RestEndpoint(configBean = Object.class, opType = RestEndpoint.OpType.DELETE)\n"
+                + "public final class CheckedCommand extends AbstractCommand\n"
+                + "        implements AdminCommandSecurity.AccessCheckProvider {\n"
+                + "    @org.glassfish.api.Param(optional = true) Boolean force;\n"
+                + "    public java.util.Collection<?> getAccessChecks() { return null; }\n"
+                + "    public void execute(Object context) { }\n"
+                + "}\n");
+        COMMANDS.put("com/example/admin/Outer$Inner",
+                "package com.example.admin;\n"
+                + "public class Outer {\n"
+                + "    @org.jvnet.hk2.annotations.Service\n"
+                + "    protected static class Inner implements org.glassfish.api.admin.AdminCommand {\n"
+                + "        @org.glassfish.api.Param long size;\n"
+                + "        public void execute(Object context) { }\n"
+                + "    }\n"
+                + "}\n");
+    }
+
+    /*
+     * Commands whose fields name config beans; the goals would look those
+     * up, so these are compared as the analysis engine reports them.
+     */
+    static final Map<String,String> CONFIG_BEAN_COMMANDS = new LinkedHashMap<>();
+    static {
+        CONFIG_BEAN_COMMANDS.put("com/example/admin/AddWidget",
+                "package com.example.admin;\n"
+                + "import org.glassfish.api.admin.*;\n"
+                + "@org.jvnet.hk2.annotations.Service(name = \"add-widget\")\n"
+                + "public class AddWidget extends AbstractCommand {\n"
+                + "    @AccessRequired.To({\"update\", \"read\"}) Object widget;\n"
+                + "    @AccessRequired.NewChild(type = ListWidgets.class, collection = \"widgets\", action = {\"create\"})\n"
+                + "    @org.glassfish.api.Param(optional = true) Object parent;\n"
+                + "    public void execute(Object context) { }\n"
+                + "}\n");
+    }
+
+    static final String SUPPORT_SOURCE =
+            "package com.example.admin;\n"
+            + "public abstract class AbstractCommand implements org.glassfish.api.admin.AdminCommand {\n"
+            + "    @org.glassfish.api.Param(optional = true) protected String target;\n"
+            + "}\n";
+
+    @TempDir
+    Path dir;
+
+    private Path classes;
+
+    @BeforeEach
+    void compile() throws IOException {
+        classes = dir.resolve("classes");
+        Files.createDirectories(classes);
+        final Map<String,String> sources = new LinkedHashMap<>(API);
+        sources.putAll(COMMANDS);
+        sources.putAll(CONFIG_BEAN_COMMANDS);
+        sources.put("com/example/admin/AbstractCommand", SUPPORT_SOURCE);
+        compile(sources, true);
+    }
+
+    @Test
+    void indexRecordsEveryCommandAndItsClassFile() throws IOException {
+        final Map<String,CommandSecurityIndex.IndexedCommand> index = readIndex();
+        final List<String> expected = new ArrayList<>(COMMANDS.keySet());
+        expected.addAll(CONFIG_BEAN_COMMANDS.keySet());
+        Collections.sort(expected);
+        final List<String> actual = new ArrayList<>(index.keySet());
+        Collections.sort(actual);
+        assertEquals(expected, actual);
+        for (CommandSecurityIndex.IndexedCommand command : index.values()) {
+            assertEquals(Files.size(classes.resolve(command.name + ".class")), command.classFileSize,
+                    command.name);
+        }
+    }
+
+    @Test
+    void indexReplayMatchesByteCode() throws IOException {
+        final ClassFileIndex.Element element = element();
+        for (String name : COMMANDS.keySet()) {
+            final CommandSecurityIndex.IndexedCommand command = element.indexedCommand(name);
+            assertNotNull(command, name);
+            final TypeAnalyzer fromIndex = new TypeAnalyzer(command, new StubTypeProcessor());
+            fromIndex.run();
+            final TypeAnalyzer fromByteCode = new TypeAnalyzer(classBuffer(name), new StubTypeProcessor());
+            fromByteCode.run();
+            assertEquals(fromByteCode.isCommand(), fromIndex.isCommand(), name);
+            assertEquals(fromByteCode.superName(), fromIndex.superName(), name);
+            assertEquals(fromByteCode.interfaces(), fromIndex.interfaces(), name);
+            assertNotNull(fromByteCode.commandAuthInfo(), name);
+            assertEquals(describe(fromByteCode.commandAuthInfo()), describe(fromIndex.commandAuthInfo()), name);
+        }
+        for (String name : allCommands()) {
+            assertEquals(recordFromByteCode(name), recordFromIndex(element.indexedCommand(name)), name);
+        }
+    }
+
+    @Test
+    void changedClassFileIsAnalyzedFromByteCode() throws IOException {
+        final Path classFile = classes.resolve("com/example/admin/ListWidgets.class");
+        final Map<String,String> sources = new LinkedHashMap<>(API);
+        sources.put("com/example/admin/ListWidgets", COMMANDS.get("com/example/admin/ListWidgets")
+                .replace("\"list\"", "\"enumerate\""));
+        compile(sources, false);
+        Files.setLastModifiedTime(classFile,
+                FileTime.fromMillis(readIndex().get("com/example/admin/ListWidgets").classFileLastModified + 2000));
+
+        final ClassFileIndex.Element element = element();
+        assertNull(element.indexedCommand("com/example/admin/ListWidgets"));
+        assertNotNull(element.indexedCommand("com/example/admin/CreateWidget"));
+    }
+
+    @Test
+    void touchedClassFileIsAnalyzedFromByteCode() throws IOException {
+        final Path classFile = classes.resolve("com/example/admin/CreateWidget.class");
+        Files.setLastModifiedTime(classFile,
+                FileTime.fromMillis(Files.getLastModifiedTime(classFile).toMillis() + 2000));
+
+        assertNull(element().indexedCommand("com/example/admin/CreateWidget"));
+    }
+
+    @Test
+    void unreadableIndexIsIgnored() throws IOException {
+        Files.write(classes.resolve(CommandSecurityIndex.PATH), new byte[] {1, 2, 3});
+
+        assertNull(element().indexedCommand("com/example/admin/CreateWidget"));
+    }
+
+    private void compile(final Map<String,String> sources, final boolean isProcessed) throws IOException {
+        final Path sourceDir = dir.resolve("src");
+        final List<Path> files = new ArrayList<>();
+        for (Map.Entry<String,String> source : sources.entrySet()) {
+            final String topLevel = source.getKey().replaceFirst("\\$.*", "");
+            final Path file = sourceDir.resolve(topLevel + ".java");
+            Files.createDirectories(file.getParent());
+            Files.write(file, source.getValue().getBytes(StandardCharsets.UTF_8));
+            files.add(file);
+        }
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final StringWriter diagnostics = new StringWriter();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            final Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(
+                    files.stream().map(Path::toFile).collect(java.util.stream.Collectors.toList()));
+            final List<String> options = new ArrayList<>(Arrays.asList(
+                    "-d", classes.toString(), "-classpath", classes.toString()));
+            if ( ! isProcessed) {
+                options.add("-proc:none");
+            }
+            final JavaCompiler.CompilationTask task = compiler.getTask(diagnostics, fileManager, null,
+                    options, null, units);
+            if (isProcessed) {
+                task.setProcessors(Collections.singletonList(new CommandSecurityIndexProcessor()));
+            }
+            assertTrue(task.call(), diagnostics::toString);
+        }
+        assertTrue( ! diagnostics.toString().contains(CommandSecurityIndex.PATH), diagnostics::toString);
+    }
+
+    private Map<String,CommandSecurityIndex.IndexedCommand> readIndex() throws IOException {
+        try (InputStream is = Files.newInputStream(classes.resolve(CommandSecurityIndex.PATH))) {
+            return CommandSecurityIndex.read(is);
+        }
+    }
+
+    private ClassFileIndex.Element element() throws IOException {
+        final ClassFileIndex index = new ClassFileIndex(false, null, Collections.<String>emptyList(),
+                new AnalysisStatistics(), new SystemStreamLog());
+        return index.classPath(Collections.singletonList(classes.toFile())).elements().get(0);
+    }
+
+    private ClassFileBuffer classBuffer(final String name) throws IOException {
+        final ClassFileBuffer buffer = ClassFileBuffer.acquire();
+        buffer.read(classes.resolve(name + ".class"));
+        return buffer;
+    }
+
+    private List<String> allCommands() {
+        final List<String> names = new ArrayList<>(COMMANDS.keySet());
+        names.addAll(CONFIG_BEAN_COMMANDS.keySet());
+        return names;
+    }
+
+    private String recordFromByteCode(final String name) throws IOException {
+        final byte[] bytes = Files.readAllBytes(classes.resolve(name + ".class"));
+        final RecordingClassVisitor recorder = new RecordingClassVisitor(CommandSecurityIndex.FIELD_ANNOTATION_DESCS);
+        AsmAnalysisEngine.INSTANCE.accept(new ClassFileHeader(bytes, 0, bytes.length), recorder,
+                CommandSecurityIndex.FIELD_ANNOTATION_DESCS);
+        return recorder.record();
+    }
+
+    private static String recordFromIndex(final CommandSecurityIndex.IndexedCommand command) {
+        final RecordingClassVisitor recorder = new RecordingClassVisitor(CommandSecurityIndex.FIELD_ANNOTATION_DESCS);
+        CommandSecurityIndexReader.accept(command, recorder, CommandSecurityIndex.FIELD_ANNOTATION_DESCS);
+        return recorder.record();
+    }
+
+    /*
+     * CommandAuthorizationInfo's toString omits some of what it holds.
+     */
+    private static String describe(final CommandAuthorizationInfo info) {
+        final StringBuilder sb = new StringBuilder(info.toString()).append('\n');
+        sb.append("name=").append(info.name()).append(" class=").append(info.className())
+                .append(" ok=").append(info.isOK())
+                .append(" rest=").append(info.hasRestAnno)
+                .append(" commandAccess=").append(info.hasCommandLevelAccessRequiredAnno)
+                .append(" fieldAccess=").append(info.hasFieldLevelAccessRequiredAnno)
+                .append(" accessCheck=").append(info.isAccessCheckProvider)
+                .append(" local=").append(info.isLocal).append('\n');
+        if (info.delegate() != null) {
+            sb.append("delegate=").append(info.delegate().delegateInternalClassName()).append('\n');
+        }
+        for (CommandAuthorizationInfo.ResourceAction pair : info.resourceActionPairs()) {
+            sb.append("access ").append(pair.resource).append(' ').append(pair.action)
+                    .append(' ').append(pair.origin).append('\n');
+        }
+        for (RestEndpointInfo endpoint : info.restEndpoints()) {
+            sb.append("endpoint ").append(endpoint).append(' ').append(endpoint.useForAuthorization()).append('\n');
+        }
+        for (CommandAuthorizationInfo.Param param : info.params()) {
+            sb.append("param ").append(param).append(' ').append(param.type());
+            for (Map.Entry<String,Object> value : param.values().entrySet()) {
+                sb.append(' ').append(value.getKey()).append('=')
+                        .append(Arrays.deepToString(new Object[] {value.getValue()}));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /*
+     * Supplies no config beans; the commands compared with it name none.
+     */
+    private static class StubTypeProcessor implements TypeProcessor {
+
+        private final AnalysisStatistics statistics = new AnalysisStatistics();
+        private final SymbolTable symbols = new SymbolTable();
+
+        @Override
+        public void execute() {
+        }
+
+        @Override
+        public List<String> okClassNames() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<String> offendingClassNames() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isFailureFatal() {
+            return false;
+        }
+
+        @Override
+        public StringBuilder trace() {
+            return null;
+        }
+
+        @Override
+        public Collection<CommandAuthorizationInfo> authInfosThisModule() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Map<String,TypeProcessorImpl.Inhabitant> configBeans() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public AnalysisStatistics statistics() {
+            return statistics;
+        }
+
+        @Override
+        public SymbolTable symbols() {
+            return symbols;
+        }
+    }
+}
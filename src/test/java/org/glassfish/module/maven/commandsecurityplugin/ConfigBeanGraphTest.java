@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks {@link ConfigBeanGraph#fullPath} against the path the plug-in built
+ * before the graph existed, by inserting each level's segment at the front,
+ * checks that the paths the graph keeps follow its changes, and checks that
+ * each graph problem is reported once.
+ */
+class ConfigBeanGraphTest {
+
+    private static final String[] CLASS_NAMES = {
+        "com.sun.enterprise.config.serverbeans.Domain",
+        "com.sun.enterprise.config.serverbeans.Resources",
+        "org.glassfish.jdbc.config.JdbcConnectionPool",
+        "org.glassfish.jdbc.config.JdbcResource",
+        "com.sun.enterprise.config.serverbeans.Config",
+        "org.glassfish.grizzly.config.dom.NetworkListener",
+        "com.sun.enterprise.config.serverbeans.SslConfig",
+        "org.glassfish.api.admin.config.ApplicationName",
+        "com.acme.config.USArmy",
+    };
+
+    private static final String[] SUBPATHS = {"*", "", "/x", "a", "b-c", "/"};
+
+    @Test
+    void fullPathMatchesInsertingPath() {
+        final Random random = new Random(20260916L);
+        for (int n = 0; n < 50_000; n++) {
+            final ConfigBeanGraph graph = new ConfigBeanGraph(new SymbolTable());
+            final List<OldInhabitant> chain = new ArrayList<>();
+            final List<String> names = new ArrayList<>(List.of(CLASS_NAMES));
+            Collections.shuffle(names, random);
+            final int levels = 1 + random.nextInt(6);
+            OldInhabitant child = null;
+            int childNode = ConfigBeanGraph.NONE;
+            final StringBuilder description = new StringBuilder();
+            for (int i = 0; i < levels; i++) {
+                final OldInhabitant level = new OldInhabitant(names.get(i));
+                final int node = graph.node(level.className);
+                description.append(level.className);
+                if (child != null) {
+                    child.parent = level;
+                    graph.setParent(childNode, node);
+                    if (random.nextBoolean()) {
+                        final String subpath = SUBPATHS[random.nextInt(SUBPATHS.length)];
+                        level.children.put(child.className, subpath);
+                        graph.addChild(node, childNode, subpath);
+                        description.append(" {").append(subpath).append('}');
+                    }
+                }
+                if (random.nextInt(4) == 0) {
+                    /*
+                     * A child the chain does not go through.
+                     */
+                    final String other = names.get(names.size() - 1);
+                    level.children.put(other, "other");
+                    graph.addChild(node, graph.node(other), "other");
+                }
+                description.append(" <- ");
+                chain.add(level);
+                child = level;
+                childNode = node;
+            }
+            final String start = chain.get(0).className;
+            assertEquals(chain.get(0).fullPath(), graph.fullPath(graph.node(start)), description.toString());
+        }
+    }
+
+    @Test
+    void fullPathStopsInParentCycle() {
+        final ConfigBeanGraph graph = new ConfigBeanGraph(new SymbolTable());
+        final int resource = graph.node("org.glassfish.jdbc.config.JdbcResource");
+        final int resources = graph.node("com.sun.enterprise.config.serverbeans.Resources");
+        final int domain = graph.node("com.sun.enterprise.config.serverbeans.Domain");
+        graph.setParent(resource, resources);
+        graph.setParent(resources, domain);
+        graph.setParent(domain, resources);
+        graph.addChild(resources, resource, "jdbc-resource");
+
+        assertEquals("resources/jdbc-resource", graph.fullPath(resource));
+    }
+
+    @Test
+    void cachedPathsFollowGraphChanges() {
+        final Random random = new Random(20261016L);
+        for (int n = 0; n < 2_000; n++) {
+            final ConfigBeanGraph graph = new ConfigBeanGraph(new SymbolTable());
+            final List<int[]> changes = new ArrayList<>();
+            final List<String> subpaths = new ArrayList<>();
+            for (int step = 0; step < 20; step++) {
+                final int node = random.nextInt(CLASS_NAMES.length);
+                final int other = random.nextInt(CLASS_NAMES.length + 1) - 1;
+                final boolean isParentChange = (other == ConfigBeanGraph.NONE || random.nextBoolean());
+                changes.add(new int[] {(isParentChange ? 0 : 1), node, other});
+                subpaths.add(SUBPATHS[random.nextInt(SUBPATHS.length)]);
+                apply(graph, changes.get(step), subpaths.get(step));
+
+                /*
+                 * A graph built from the same changes with no path asked
+                 * for until now gives the paths the cache must match.
+                 */
+                final ConfigBeanGraph fresh = new ConfigBeanGraph(new SymbolTable());
+                for (int k = 0; k <= step; k++) {
+                    apply(fresh, changes.get(k), subpaths.get(k));
+                }
+                for (String className : CLASS_NAMES) {
+                    assertEquals(fresh.fullPath(fresh.node(className)), graph.fullPath(graph.node(className)),
+                            className + " after change " + step + " of run " + n);
+                }
+            }
+        }
+    }
+
+    private static void apply(final ConfigBeanGraph graph, final int[] change, final String subpath) {
+        final int node = graph.node(CLASS_NAMES[change[1]]);
+        final int other = (change[2] == ConfigBeanGraph.NONE ? ConfigBeanGraph.NONE : graph.node(CLASS_NAMES[change[2]]));
+        if (change[0] == 0) {
+            graph.setParent(node, other);
+        } else {
+            graph.addChild(other, node, subpath);
+        }
+    }
+
+    @Test
+    void problemsAreReportedOnce() {
+        final ConfigBeanGraph graph = new ConfigBeanGraph(new SymbolTable());
+        final int resources = graph.node("com.sun.enterprise.config.serverbeans.Resources");
+        final int domain = graph.node("com.sun.enterprise.config.serverbeans.Domain");
+        graph.declare(resources);
+        graph.declare(domain);
+        assertNull(graph.newProblemsReport());
+
+        graph.setParent(resources, domain);
+        graph.setParent(domain, resources);
+        assertEquals("Config bean graph has 1 new problem(s)\n"
+                + "  cycle: com.sun.enterprise.config.serverbeans.Resources"
+                + " -> com.sun.enterprise.config.serverbeans.Domain"
+                + " -> com.sun.enterprise.config.serverbeans.Resources",
+                graph.newProblemsReport());
+        assertNull(graph.newProblemsReport());
+
+        final int pool = graph.node("org.glassfish.jdbc.config.JdbcConnectionPool");
+        graph.setParent(pool, graph.node("org.glassfish.jdbc.config.Undeclared"));
+        assertEquals("Config bean graph has 1 new problem(s)\n"
+                + "  dangling parent: org.glassfish.jdbc.config.Undeclared"
+                + " (parent of org.glassfish.jdbc.config.JdbcConnectionPool)",
+                graph.newProblemsReport());
+        assertNull(graph.newProblemsReport());
+    }
+
+    /*
+     * The config bean as the plug-in kept it before the graph, with the path
+     * built as it was then.
+     */
+    private static class OldInhabitant {
+        private final String className;
+        private OldInhabitant parent;
+        private final Map<String,String> children = new HashMap<>();
+
+        OldInhabitant(final String className) {
+            this.className = className;
+        }
+
+        String fullPath() {
+            final StringBuilder path = new StringBuilder();
+            for (OldInhabitant i = this; i != null; i = i.parent) {
+                if (path.length() > 0 && path.charAt(0) != '/') {
+                    path.insert(0, '/');
+                }
+                final OldInhabitant p = i.parent;
+                final String subpathInParent = (p == null ? null : p.children.get(i.className));
+                if (subpathInParent != null) {
+                    if ( ! (subpathInParent.equals("*") && path.length() > 0)) {
+                        path.insert(0, subpathInParent);
+                    }
+                } else {
+                    path.insert(0, Util.convertName(Util.lastPart(i.className)));
+                }
+            }
+            return path.toString();
+        }
+    }
+}
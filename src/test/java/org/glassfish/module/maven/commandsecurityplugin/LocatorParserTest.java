@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.glassfish.hk2.utilities.DescriptorImpl;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks {@link LocatorParser} against hk2's own reading of locator files,
+ * which it must match descriptor for descriptor, including which malformed
+ * files are rejected.
+ */
+class LocatorParserTest {
+
+    private static final String[] EDGE_CASES = {
+        "",
+        "\n\n\n",
+        "# comment only\n",
+        "[com.acme.Widget]\ncontract={com.acme.Widget,org.jvnet.hk2.config.ConfigBeanProxy}\nname=widget\n",
+        "[com.acme.Widget]\ncontract={a.B}\n",
+        "[com.acme.Widget]\r\ncontract={a.B}\r\nname=crlf\r\n\r\n[second]\r\n",
+        "[com.acme.Widget]\rcontract={a.B}\rname=cr\r\r[second]\r",
+        "  [com.acme.Widget]  \n  name=  trimmed  \n  \n",
+        "[com.acme.Widget]-\ncontract={a.B}\n",
+        "[com.acme.Widget]  -  \nname=x\n",
+        "[]\ncontract={a.B}\n",
+        "[com.acme.Widget\ncontract={a.B}\n",
+        "[com.acme.Widget]\nCONTRACT={a.B}\nContract={c.D,a.B}\n",
+        "[com.acme.Widget]\nNAME=ignored\nname=kept\n",
+        "[com.acme.Widget]\ncontract={a\\,b,c\\}d,e\\\\f,g\\nh,i\\rj}\n",
+        "[com.acme.Widget]\ncontract={}\n",
+        "[com.acme.Widget]\ncontract=a.B\n",
+        "[com.acme.Widget]\ncontract={a.B\n",
+        "[com.acme.Widget]\ncontract=xyz{a.B}\n",
+        "[com.acme.Widget]\ncontract={a.B,a.B,c.D}\n",
+        "[com.acme.Widget]\nmetadata=target={com.acme.Pool},MethodListActual={java.util.List},"
+                + "MethodName={getPool},ParentConfigured={com.acme.Pools}\n",
+        "[com.acme.Widget]\nmetadata=<pool>={com.acme.Pool},<*>={collection\\:com.acme.Other},<a>b>={x}\n",
+        "[com.acme.Widget]\nmetadata=<pool>={a},<pool>={b},<other>={c},<pool>={d}\n",
+        "[com.acme.Widget]\nmetadata=target={a,b,c},target={d}\n",
+        "[com.acme.Widget]\nmetadata=target={a}\nmetadata=MethodName={m}\n",
+        "[com.acme.Widget]\nmetadata=target={a}\nmetadata=\n",
+        "[com.acme.Widget]\nmetadata=key\n",
+        "[com.acme.Widget]\nmetadata=key=\n",
+        "[com.acme.Widget]\nmetadata=key={value\n",
+        "[com.acme.Widget]\nmetadata=key=value}\n",
+        "[com.acme.Widget]\nmetadata=target={a},,MethodName={m}\n",
+        "[com.acme.Widget]\nmetadata=target={a}junk,MethodName={m}\n",
+        "[com.acme.Widget]\nmetadata=<>={a},<x>={},target={}\n",
+        "[com.acme.Widget]\nmetadata=target={a\\}\n",
+        "[com.acme.Widget]\nmetadata=target={a\\\n",
+        "[com.acme.Widget]\nqualifier={javax.inject.Named}\nscope=javax.inject.Singleton\nrank=3\n",
+        "[com.acme.Widget]\n=value\nnoequals\n",
+        "[com.acme.Widget]\n\t\f name=tabs\u000b\n",
+        "[com.acmé.Widgët]\nname=中文\n",
+        "name=outside\n[com.acme.Widget]\n",
+        "[a]\n[b]\nname=x\n\n[c]",
+        "[com.acme.Widget]\ncontract={a.B}\n\n\n\n[com.acme.Other]\nname=other",
+    };
+
+    /*
+     * Pieces random files are built from, valid and not.
+     */
+    private static final String[] LINES = {
+        "", " ", "\t", "# comment",
+        "[com.acme.Widget]", "[com.acme.Other]-", "[]", "[x", " [a.b.C] - ", "[a]b]",
+        "contract={a.B}", "contract={a.B,c.D}", "CONTRACT={c.D}", "contract={}", "contract=a", "contract={a",
+        "contract={a\\,b}", "contract={a\\}", "name=n", "name=", "Name=n", "name=a=b",
+        "metadata=target={t}", "metadata=target={t1,t2}", "metadata=<child>={c.D}", "metadata=<*>={x}",
+        "metadata=MethodListActual={java.util.List},MethodName={getX},ParentConfigured={p.Q}",
+        "metadata=", "metadata=k", "metadata=k=", "metadata=k={v", "metadata=k={v},", "metadata=k={v}x,target={y}",
+        "metadata=<a>={1},<b>={2},<a>={3}", "qualifier={q.Q}", "scope=s", "=", "x=y",
+    };
+
+    private static final String NOISE = "[]{}=,<>\\-ab \t:";
+
+    @Test
+    void edgeCasesMatchHk2() {
+        for (String locator : EDGE_CASES) {
+            assertEquals(hk2(locator), parse(locator), locator);
+        }
+    }
+
+    @Test
+    void randomFilesMatchHk2() {
+        final Random random = new Random(20260915L);
+        for (int n = 0; n < 20_000; n++) {
+            final String locator = randomLocator(random);
+            assertEquals(hk2(locator), parse(locator), locator);
+        }
+    }
+
+    private static String randomLocator(final Random random) {
+        final StringBuilder sb = new StringBuilder();
+        final int lines = random.nextInt(12);
+        for (int i = 0; i < lines; i++) {
+            if (random.nextInt(8) == 0) {
+                final int length = random.nextInt(10);
+                for (int j = 0; j < length; j++) {
+                    sb.append(NOISE.charAt(random.nextInt(NOISE.length())));
+                }
+            } else {
+                sb.append(LINES[random.nextInt(LINES.length)]);
+            }
+            switch (random.nextInt(6)) {
+                case 0:
+                    sb.append("\r\n");
+                    break;
+                case 1:
+                    sb.append('\r');
+                    break;
+                case 2:
+                    if (i == lines - 1) {
+                        break;
+                    }
+                    // fall through
+                default:
+                    sb.append('\n');
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+
+    /*
+     * The descriptors, or a failure marker for a file that is rejected.
+     */
+    private static Object parse(final String locator) {
+        try {
+            return LocatorParser.parse(locator.getBytes(UTF_8));
+        } catch (IOException ex) {
+            return "rejected";
+        }
+    }
+
+    private static Object hk2(final String locator) {
+        final List<LocatorParser.Entry> result = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(locator.getBytes(UTF_8)), UTF_8))) {
+            DescriptorImpl di;
+            while ((di = new DescriptorImpl()).readObject(reader)) {
+                result.add(LocatorParser.Entry.of(di));
+            }
+        } catch (IOException ex) {
+            return "rejected";
+        }
+        return result;
+    }
+}
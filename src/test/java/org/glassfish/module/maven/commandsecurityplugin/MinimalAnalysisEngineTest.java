@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks {@link MinimalAnalysisEngine} against {@link AsmAnalysisEngine}:
+ * both must report the same to the analysis for every class, with the field
+ * annotations of interest of both the full and the verdict-only analysis.
+ */
+class MinimalAnalysisEngineTest {
+
+    /*
+     * Annotations and classes using every kind of element value, invisible
+     * annotations and constant pool entries of each size.
+     */
+    private static final Map<String,String> SAMPLES = new LinkedHashMap<>();
+    static {
+        SAMPLES.put("com/example/values/Values",
+                "package com.example.values;\n"
+                + "import java.lang.annotation.*;\n"
+                + "@Retention(RetentionPolicy.RUNTIME)\n"
+                + "public @interface Values {\n"
+                + "    byte b() default 1; char c() default 'c'; short s() default 2; int i() default 3;\n"
+                + "    long l() default 4L; float f() default 5f; double d() default 6d; boolean z() default true;\n"
+                + "    byte[] bs() default {}; char[] cs() default {}; short[] ss() default {}; int[] is() default {};\n"
+                + "    long[] ls() default {}; float[] fs() default {}; double[] ds() default {};\n"
+                + "    boolean[] zs() default {};\n"
+                + "    String text() default \"\"; String[] texts() default {};\n"
+                + "    Class<?> type() default Object.class; Class<?>[] types() default {};\n"
+                + "    RetentionPolicy policy() default RetentionPolicy.RUNTIME;\n"
+                + "    RetentionPolicy[] policies() default {};\n"
+                + "    Nested nested() default @Nested; Nested[] nesteds() default {};\n"
+                + "}\n");
+        SAMPLES.put("com/example/values/Nested",
+                "package com.example.values;\n"
+                + "import java.lang.annotation.*;\n"
+                + "@Retention(RetentionPolicy.RUNTIME)\n"
+                + "public @interface Nested { String value() default \"\"; int[] counts() default {};\n"
+                + "    Inner inner() default @Inner; }\n");
+        SAMPLES.put("com/example/values/Inner",
+                "package com.example.values;\n"
+                + "import java.lang.annotation.*;\n"
+                + "@Retention(RetentionPolicy.RUNTIME)\n"
+                + "public @interface Inner { ElementType[] value() default {}; }\n");
+        SAMPLES.put("com/example/values/Hidden",
+                "package com.example.values;\n"
+                + "import java.lang.annotation.*;\n"
+                + "@Retention(RetentionPolicy.CLASS)\n"
+                + "public @interface Hidden { String value() default \"\"; long[] longs() default {}; }\n");
+        SAMPLES.put("com/example/values/ValuesCommand",
+                "package com.example.values;\n"
+                + "import java.lang.annotation.*;\n"
+                + "import org.glassfish.api.Param;\n"
+                + "import org.glassfish.api.admin.*;\n"
+                + "@Hidden(value = \"class\", longs = {Long.MIN_VALUE, 0L, Long.MAX_VALUE})\n"
+                + "@Values(b = -128, c = '\\u20ac', s = Short.MIN_VALUE, i = Integer.MAX_VALUE,\n"
+                + "        l = Long.MIN_VALUE, f = Float.NaN, d = -0.0d, z = false,\n"
+                + "        bs = {-1, 0, 127}, cs = {'a', '\\u0000'}, ss = {-2, 32767}, is = {Integer.MIN_VALUE, 7},\n"
+                + "        ls = {1L, -1L}, fs = {Float.POSITIVE_INFINITY, 1.5f}, ds = {Double.MIN_VALUE, 2.25d},\n"
+                + "        zs = {true, false}, text = \"caf\\u00e9 \\ud83d\\ude00\", texts = {\"a\", \"\"},\n"
+                + "        type = int[].class, types = {void.class, String.class, Values[][].class},\n"
+                + "        policy = RetentionPolicy.CLASS, policies = {RetentionPolicy.SOURCE, RetentionPolicy.RUNTIME},\n"
+                + "        nested = @Nested(value = \"n\", counts = {1, 2}, inner = @Inner({ElementType.FIELD})),\n"
+                + "        nesteds = {@Nested, @Nested(counts = {}), @Nested(inner = @Inner({}))})\n"
+                + "@org.jvnet.hk2.annotations.Service(name = \"values\")\n"
+                + "@AccessRequired(resource = {\"domain/values\"}, action = {\"read\", \"update\"})\n"
+                + "public class ValuesCommand implements AdminCommand {\n"
+                + "    static final long BIG = 0x1234567890abcdefL;\n"
+                + "    static final double RATIO = 3.5e300;\n"
+                + "    static final String TEXT = \"constant\";\n"
+                + "    @Values(ls = {BIG}) @Hidden(\"unmarked\") long unmarked;\n"
+                + "    @Hidden(\"first\") @Param(name = \"first\", optional = true, separator = ';',\n"
+                + "            defaultCalculator = ValuesCommand.class) @Values(nesteds = {@Nested(\"p\")})\n"
+                + "    String first;\n"
+                + "    @AccessRequired.To(value = {\"read\"}, collection = \"\") @Hidden Object to;\n"
+                + "    @AccessRequired.NewChild(type = Values.class, action = {}) Object newChild;\n"
+                + "    @Param(primary = true, multiple = true) java.util.List<String> operands;\n"
+                + "    public void execute(Object context) {\n"
+                + "        double x = RATIO * BIG;\n"
+                + "        if (x > 0) { throw new IllegalStateException(TEXT + x); }\n"
+                + "    }\n"
+                + "    private static long twice(long l) { return 2 * l; }\n"
+                + "}\n");
+        SAMPLES.put("com/example/values/Plain",
+                "package com.example.values;\n"
+                + "public class Plain extends java.util.AbstractList<String> implements java.io.Serializable {\n"
+                + "    private int size;\n"
+                + "    public String get(int i) { return String.valueOf(i); }\n"
+                + "    public int size() { return size; }\n"
+                + "}\n");
+    }
+
+    @TempDir
+    Path dir;
+
+    private Path classes;
+
+    @BeforeEach
+    void compile() throws IOException {
+        classes = dir.resolve("classes");
+        Files.createDirectories(classes);
+        final Map<String,String> sources = new LinkedHashMap<>(CommandSecurityIndexProcessorTest.API);
+        sources.putAll(CommandSecurityIndexProcessorTest.COMMANDS);
+        sources.putAll(CommandSecurityIndexProcessorTest.CONFIG_BEAN_COMMANDS);
+        sources.put("com/example/admin/AbstractCommand", CommandSecurityIndexProcessorTest.SUPPORT_SOURCE);
+        sources.putAll(SAMPLES);
+
+        final Path sourceDir = dir.resolve("src");
+        final List<Path> files = new ArrayList<>();
+        for (Map.Entry<String,String> source : sources.entrySet()) {
+            final Path file = sourceDir.resolve(source.getKey().replaceFirst("\\$.*", "") + ".java");
+            Files.createDirectories(file.getParent());
+            Files.write(file, source.getValue().getBytes(StandardCharsets.UTF_8));
+            files.add(file);
+        }
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final StringWriter diagnostics = new StringWriter();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            final Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(
+                    files.stream().map(Path::toFile).collect(Collectors.toList()));
+            assertTrue(compiler.getTask(diagnostics, fileManager, null,
+                    Arrays.asList("-d", classes.toString(), "-proc:none", "-encoding", "UTF-8"), null, units).call(),
+                    diagnostics::toString);
+        }
+    }
+
+    @Test
+    void minimalEngineReportsWhatAsmReports() throws IOException {
+        assertSameRecords(TypeAnalyzer.FIELD_ANNOTATION_DESCS);
+    }
+
+    @Test
+    void minimalEngineReportsWhatAsmReportsForVerdictOnly() throws IOException {
+        assertSameRecords(TypeAnalyzer.VERDICT_FIELD_ANNOTATION_DESCS);
+    }
+
+    private void assertSameRecords(final Collection<String> fieldAnnotationDescs) throws IOException {
+        final List<Path> classFiles;
+        try (Stream<Path> walk = Files.walk(classes)) {
+            classFiles = walk.filter(p -> p.toString().endsWith(".class")).sorted().collect(Collectors.toList());
+        }
+        assertTrue(classFiles.size() > SAMPLES.size(), classFiles::toString);
+        for (Path classFile : classFiles) {
+            final byte[] bytes = Files.readAllBytes(classFile);
+            final String expected = record(AsmAnalysisEngine.INSTANCE, bytes, fieldAnnotationDescs);
+            assertEquals(expected, record(MinimalAnalysisEngine.INSTANCE, bytes, fieldAnnotationDescs),
+                    classes.relativize(classFile).toString());
+            assertTrue(expected.contains("end\n"), expected);
+        }
+    }
+
+    /*
+     * The buffer is larger than the class and filled past it, as the reused
+     * per-thread buffers are, so an engine reading beyond the class shows.
+     */
+    private static String record(final AnalysisEngine engine, final byte[] bytes,
+            final Collection<String> fieldAnnotationDescs) {
+        final byte[] buffer = new byte[bytes.length + 64];
+        Arrays.fill(buffer, (byte) 0x7f);
+        System.arraycopy(bytes, 0, buffer, 0, bytes.length);
+        final RecordingClassVisitor recorder = new RecordingClassVisitor(fieldAnnotationDescs);
+        engine.accept(new ClassFileHeader(buffer, 0, bytes.length), recorder, fieldAnnotationDescs);
+        return recorder.record();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.module.maven.commandsecurityplugin;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks {@link Util#convertName} against the regular expression tokenizer,
+ * copied from the hk2 config Dom class, which it replaced.
+ */
+class UtilTest {
+
+    private static final Pattern TOKENIZER = Pattern.compile(
+            ("((?<=x)(?=X))"            // AbcDef -> Abc|Def
+            + "|((?<=X)(?=Xx))"         // USArmy -> US|Army
+            + "|((?<=\\d)(?=\\D))")     // SSL2Connector -> SSL|2|Connector
+            .replace("x", "\\p{Lower}").replace("X", "\\p{Upper}"));
+
+    private static final String[] CONFIG_BEAN_NAMES = {
+        "Domain", "Config", "Configs", "Server", "Servers", "Cluster", "Clusters", "Node", "Nodes",
+        "Applications", "Application", "ApplicationRef", "ApplicationConfig", "Module", "Engine",
+        "Resources", "ResourceRef", "JdbcConnectionPool", "JdbcResource", "ConnectorConnectionPool",
+        "ConnectorResource", "AdminObjectResource", "MailResource", "CustomResource", "ExternalJndiResource",
+        "ResourceAdapterConfig", "WorkSecurityMap", "PrincipalMap", "GroupMap", "ManagedExecutorService",
+        "ManagedScheduledExecutorService", "ManagedThreadFactory", "ContextService", "Java2DBConfig",
+        "SSL2Connector", "USArmy", "SslConfig", "Ssl", "HttpService", "VirtualServer", "AccessLog",
+        "NetworkConfig", "NetworkListener", "NetworkListeners", "Protocol", "Protocols", "Http", "Http2",
+        "HTTP2Config", "HttpRedirect", "PortUnification", "ProtocolFinder", "Transport", "ThreadPool",
+        "IiopService", "IiopListener", "ORB", "IIOPSSL", "JmsService", "JmsHost", "AdminService",
+        "JmxConnector", "DasConfig", "SecurityService", "AuthRealm", "JaccProvider", "AuditModule",
+        "MessageSecurityConfig", "ProviderConfig", "RequestPolicy", "ResponsePolicy", "EjbContainer",
+        "EjbTimerService", "WebContainer", "MdbContainer", "JavaConfig", "JvmOptionBag", "Profiler",
+        "Property", "SystemProperty", "SshConnector", "SshAuth", "LbConfig", "HealthChecker",
+        "DiagnosticService", "MonitoringService", "ModuleMonitoringLevels", "TransactionService",
+        "ConnectorService", "GrizzlyConfig", "X509Cert", "V3",
+        "A", "AB", "aB", "a1b", "1a", "ABC1DEF", "abc", "",
+    };
+
+    private static final String ALPHABET = "aAzZ09_$éÉİiIΣ";
+
+    @Test
+    void configBeanNamesConvertAsTokenizerDid() {
+        for (String name : CONFIG_BEAN_NAMES) {
+            assertEquals(tokenizerConvertName(name), Util.convertName(name), name);
+        }
+    }
+
+    @Test
+    void knownNamesConvert() {
+        assertEquals("us-army", Util.convertName("USArmy"));
+        assertEquals("ssl2-connector", Util.convertName("SSL2Connector"));
+        assertEquals("java2-db-config", Util.convertName("Java2DBConfig"));
+        assertEquals("jdbc-connection-pool", Util.convertName("JdbcConnectionPool"));
+    }
+
+    @Test
+    void randomNamesConvertAsTokenizerDid() {
+        final Random random = new Random(20260917L);
+        final StringBuilder name = new StringBuilder();
+        for (int n = 0; n < 100_000; n++) {
+            name.setLength(0);
+            final int length = random.nextInt(9);
+            for (int i = 0; i < length; i++) {
+                name.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            if (random.nextInt(20) == 0) {
+                name.appendCodePoint(0x1F600);
+            }
+            final String s = name.toString();
+            assertEquals(tokenizerConvertName(s), Util.convertName(s), s);
+        }
+    }
+
+    private static String tokenizerConvertName(final String name) {
+        final StringBuilder buf = new StringBuilder(name.length() + 5);
+        for (String t : TOKENIZER.split(name)) {
+            if (buf.length() > 0) {
+                buf.append('-');
+            }
+            buf.append(t.toLowerCase());
+        }
+        return buf.toString();
+    }
+}